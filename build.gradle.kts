@@ -28,6 +28,10 @@ dependencies {
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.3.1")
 }
 
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+}
+
 tasks.jar {
     manifest {
         attributes("Main-Class" to "com.tridevmc.atlas.Atlas")
@@ -0,0 +1,270 @@
+package com.tridevmc.atlas.analysis;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.tridevmc.atlas.analysis.CoverageReport.Entry;
+import com.tridevmc.atlas.analysis.CoverageReport.Kind;
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMember;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Checks the classes of a jar against mappings without remapping it, reporting unmapped, stale and mismatched entries.
+ * <p>
+ * Classes are read in parallel and only their headers and member signatures are parsed, code is skipped entirely.
+ * Synthetic members are usually left out of mappings, so they aren't reported as unmapped unless asked for.
+ * Constructors and static initializers are never renamed and many formats, such as SRG, don't list them, so they're only checked when they're mapped.
+ */
+public class CoverageAnalyzer {
+
+    private final AtlasMappings mappings;
+    private final boolean fromMappedName;
+    private boolean includeSynthetic;
+
+    /**
+     * Creates an analyzer for jars using the obfuscated names of the given mappings.
+     *
+     * @param mappings the mappings to check against.
+     */
+    public CoverageAnalyzer(AtlasMappings mappings) {
+        this(mappings, false);
+    }
+
+    /**
+     * Creates an analyzer for jars using either the obfuscated or mapped names of the given mappings.
+     *
+     * @param mappings       the mappings to check against.
+     * @param fromMappedName whether the jars use mapped names, such as when checking a jar before it's obfuscated.
+     */
+    public CoverageAnalyzer(AtlasMappings mappings, boolean fromMappedName) {
+        this.mappings = mappings;
+        this.fromMappedName = fromMappedName;
+    }
+
+    /**
+     * Sets whether synthetic members without mappings are reported as unmapped, disabled by default.
+     *
+     * @param includeSynthetic true to report unmapped synthetic members.
+     * @return this analyzer.
+     */
+    public CoverageAnalyzer setIncludeSynthetic(boolean includeSynthetic) {
+        this.includeSynthetic = includeSynthetic;
+        return this;
+    }
+
+    /**
+     * Checks the given jar on the common fork join pool.
+     *
+     * @param jar the jar to check.
+     * @return the report of the check.
+     * @throws IOException if the jar couldn't be read.
+     */
+    public CoverageReport analyze(Path jar) throws IOException {
+        return this.analyze(jar, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Checks the given jar on the given pool.
+     *
+     * @param jar  the jar to check.
+     * @param pool the pool to read classes on.
+     * @return the report of the check.
+     * @throws IOException if the jar couldn't be read.
+     */
+    public CoverageReport analyze(Path jar, ForkJoinPool pool) throws IOException {
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            List<ZipEntry> classes = zip.stream().filter(e -> !e.isDirectory() && e.getName().endsWith(".class")).collect(Collectors.toList());
+            Set<String> classNames = ConcurrentHashMap.newKeySet();
+            List<List<Entry>> results;
+            try {
+                results = pool.submit(() -> classes.parallelStream().map(e -> this.check(zip, e, classNames)).collect(Collectors.toList())).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while analyzing " + jar, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new RuntimeException("Failed to analyze " + jar, e.getCause());
+            }
+
+            ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+            results.forEach(entries::addAll);
+            for (AtlasType type : this.mappings.getTypes()) {
+                this.findStaleTypes(type, classNames, entries);
+            }
+            return new CoverageReport(classNames.size(), entries.build());
+        }
+    }
+
+    private List<Entry> check(ZipFile zip, ZipEntry zipEntry, Set<String> classNames) {
+        ClassSignatures signatures = new ClassSignatures();
+        try (InputStream in = zip.getInputStream(zipEntry)) {
+            new ClassReader(in).accept(signatures, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if ((signatures.access & Opcodes.ACC_MODULE) != 0 || signatures.name.endsWith("package-info")) {
+            return Collections.emptyList();
+        }
+        classNames.add(signatures.name);
+
+        List<Entry> entries = Lists.newArrayList();
+        AtlasType type = this.mappings.findType(signatures.name, this.fromMappedName);
+        if (type == null) {
+            entries.add(new Entry(Kind.UNMAPPED, signatures.name, null, null, null));
+            return entries;
+        }
+
+        Set<AtlasMember> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Member field : signatures.fields) {
+            AtlasField mapped = type.findField(field.name, this.fromMappedName);
+            if (mapped == null) {
+                if (this.includeSynthetic || !field.synthetic)
+                    entries.add(new Entry(Kind.UNMAPPED, signatures.name, field.name, field.descriptor, null));
+                continue;
+            }
+            matched.add(mapped);
+            String expected = this.fieldDescriptor(mapped.getType());
+            if (expected != null && !expected.equals(field.descriptor)) {
+                entries.add(new Entry(Kind.DESCRIPTOR_MISMATCH, signatures.name, field.name, field.descriptor, expected));
+            }
+        }
+
+        List<Member> unmatchedMethods = Lists.newArrayList();
+        for (Member method : signatures.methods) {
+            AtlasMethod mapped = type.findMethod(method.name, method.descriptor, this.fromMappedName);
+            if (mapped == null) {
+                unmatchedMethods.add(method);
+            } else {
+                matched.add(mapped);
+            }
+        }
+        // Methods whose names are mapped under another descriptor are mismatches rather than unmapped, the mapping they used is then accounted for.
+        for (Member method : unmatchedMethods) {
+            if (method.initializer) {
+                continue;
+            }
+            AtlasMethod candidate = type.getMethods().stream()
+                    .filter(m -> !matched.contains(m) && method.name.equals(this.fromMappedName ? m.getMappedName() : m.getObfuscatedName()))
+                    .findFirst().orElse(null);
+            if (candidate != null) {
+                matched.add(candidate);
+                entries.add(new Entry(Kind.DESCRIPTOR_MISMATCH, signatures.name, method.name, method.descriptor, this.methodDescriptor(candidate)));
+            } else if (this.includeSynthetic || !method.synthetic) {
+                entries.add(new Entry(Kind.UNMAPPED, signatures.name, method.name, method.descriptor, null));
+            }
+        }
+
+        for (AtlasField field : type.getFields()) {
+            if (!matched.contains(field)) {
+                entries.add(new Entry(Kind.STALE, signatures.name, this.name(field), this.fieldDescriptor(field.getType()), null));
+            }
+        }
+        for (AtlasMethod method : type.getMethods()) {
+            if (!matched.contains(method)) {
+                entries.add(new Entry(Kind.STALE, signatures.name, this.name(method), this.methodDescriptor(method), null));
+            }
+        }
+        return entries;
+    }
+
+    private void findStaleTypes(AtlasType type, Set<String> classNames, ImmutableList.Builder<Entry> entries) {
+        if (!classNames.contains(this.name(type))) {
+            entries.add(new Entry(Kind.STALE, this.name(type), null, null, null));
+        }
+        for (AtlasType child : type.getChildren()) {
+            this.findStaleTypes(child, classNames, entries);
+        }
+    }
+
+    private String name(AtlasMember member) {
+        return this.fromMappedName ? member.getMappedName() : member.getObfuscatedName();
+    }
+
+    private String methodDescriptor(AtlasMethod method) {
+        return this.fromMappedName ? method.getMappedDescriptor() : method.getObfuscatedDescriptor();
+    }
+
+    /**
+     * Converts the mapped type of a field into a descriptor using the names the jar uses.
+     *
+     * @return the descriptor, or null if the field's type isn't known.
+     */
+    private String fieldDescriptor(String type) {
+        if (type == null || type.isEmpty()) {
+            return null;
+        }
+        return AtlasMember.convertToDescriptor(this.fromMappedName ? type : AtlasMember.mapElementType(type, this.mappings::getTypeNameObfuscated));
+    }
+
+    /**
+     * The name and descriptor of a field or method read from a class.
+     */
+    private static class Member {
+        private final String name, descriptor;
+        private final boolean synthetic, initializer;
+
+        private Member(int access, String name, String descriptor) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.synthetic = (access & Opcodes.ACC_SYNTHETIC) != 0;
+            this.initializer = name.equals("<init>") || name.equals("<clinit>");
+        }
+    }
+
+    /**
+     * Collects the name and member signatures of a class, nothing else is kept.
+     */
+    private static class ClassSignatures extends ClassVisitor {
+        private int access;
+        private String name;
+        private final List<Member> fields = Lists.newArrayList();
+        private final List<Member> methods = Lists.newArrayList();
+
+        private ClassSignatures() {
+            super(Opcodes.ASM8);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.access = access;
+            this.name = name;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            this.fields.add(new Member(access, name, descriptor));
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            this.methods.add(new Member(access, name, descriptor));
+            return null;
+        }
+    }
+
+}
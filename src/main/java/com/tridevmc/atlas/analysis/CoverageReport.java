@@ -0,0 +1,184 @@
+package com.tridevmc.atlas.analysis;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+
+/**
+ * The result of checking a jar against mappings, lists every entry that didn't match along with counts per package.
+ */
+public class CoverageReport {
+
+    /**
+     * The ways an entry can fail to match.
+     */
+    public enum Kind {
+        /**
+         * A class or member in the jar that has no mapping.
+         */
+        UNMAPPED,
+        /**
+         * A mapped type or member that no longer exists in the jar.
+         */
+        STALE,
+        /**
+         * A member that exists in both, but whose mapped descriptor or type doesn't match the jar.
+         */
+        DESCRIPTOR_MISMATCH
+    }
+
+    /**
+     * A single entry that didn't match, named as it appears in the jar.
+     */
+    public static class Entry {
+        private final Kind kind;
+        private final String owner, name, descriptor, expectedDescriptor;
+
+        Entry(Kind kind, String owner, String name, String descriptor, String expectedDescriptor) {
+            this.kind = kind;
+            this.owner = owner;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.expectedDescriptor = expectedDescriptor;
+        }
+
+        /**
+         * Gets the way this entry failed to match.
+         *
+         * @return the kind of this entry.
+         */
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        /**
+         * Gets the internal name of the class this entry belongs to, or of the class itself for class entries.
+         *
+         * @return the owner of this entry.
+         */
+        public String getOwner() {
+            return this.owner;
+        }
+
+        /**
+         * Gets the name of the member, or null if the entry is a class.
+         *
+         * @return the name of the member.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Gets the descriptor of the member, or null if the entry is a class or the descriptor isn't known.
+         *
+         * @return the descriptor of the member.
+         */
+        public String getDescriptor() {
+            return this.descriptor;
+        }
+
+        /**
+         * Gets the descriptor the mappings expected for a descriptor mismatch, or null for any other kind of entry.
+         *
+         * @return the expected descriptor.
+         */
+        public String getExpectedDescriptor() {
+            return this.expectedDescriptor;
+        }
+
+        /**
+         * Gets the package of the owner of this entry, using "/" as the separator and an empty string for the default package.
+         *
+         * @return the package of this entry.
+         */
+        public String getPackage() {
+            int end = this.owner.lastIndexOf('/');
+            return end < 0 ? "" : this.owner.substring(0, end);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .omitNullValues()
+                    .add("kind", this.kind)
+                    .add("owner", this.owner)
+                    .add("name", this.name)
+                    .add("descriptor", this.descriptor)
+                    .add("expectedDescriptor", this.expectedDescriptor)
+                    .toString();
+        }
+    }
+
+    private final int classCount;
+    private final ImmutableList<Entry> entries;
+    private final ImmutableTable<String, Kind, Integer> packageCounts;
+
+    CoverageReport(int classCount, ImmutableList<Entry> entries) {
+        this.classCount = classCount;
+        this.entries = entries;
+        ImmutableTable.Builder<String, Kind, Integer> counts = ImmutableTable.builder();
+        Map<String, int[]> perPackage = Maps.newTreeMap();
+        for (Entry entry : entries) {
+            perPackage.computeIfAbsent(entry.getPackage(), p -> new int[Kind.values().length])[entry.getKind().ordinal()]++;
+        }
+        perPackage.forEach((packageName, kindCounts) -> {
+            for (Kind kind : Kind.values()) {
+                if (kindCounts[kind.ordinal()] > 0) {
+                    counts.put(packageName, kind, kindCounts[kind.ordinal()]);
+                }
+            }
+        });
+        this.packageCounts = counts.build();
+    }
+
+    /**
+     * Gets the number of classes that were read from the jar.
+     *
+     * @return the number of classes checked.
+     */
+    public int getClassCount() {
+        return this.classCount;
+    }
+
+    /**
+     * Gets every entry that didn't match, in the order the classes appear in the jar followed by any stale types.
+     *
+     * @return the entries that didn't match.
+     */
+    public ImmutableList<Entry> getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * Gets the number of entries of each kind in each package, packages are sorted by name and kinds without entries are left out.
+     *
+     * @return a table of counts keyed by package and kind.
+     */
+    public ImmutableTable<String, Kind, Integer> getPackageCounts() {
+        return this.packageCounts;
+    }
+
+    /**
+     * Gets the total number of entries of the given kind.
+     *
+     * @param kind the kind of entry to count.
+     * @return the number of entries of the kind.
+     */
+    public int count(Kind kind) {
+        return this.packageCounts.column(kind).values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Determines if the jar and mappings matched completely.
+     *
+     * @return true if there were no entries, false otherwise.
+     */
+    public boolean isClean() {
+        return this.entries.isEmpty();
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.tridevmc.atlas.diff;
+
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+
+/**
+ * Receives the differences found between two mappings as they're found, every method defaults to ignoring the difference.
+ * <p>
+ * Differences are reported from multiple threads at once, so implementations must be thread safe.
+ * Members are reported along with the owning type from the mappings they belong to, the old mappings for removals and the new mappings otherwise.
+ */
+public interface IMappingsDiffListener {
+
+    default void typeAdded(AtlasType type) {
+    }
+
+    default void typeRemoved(AtlasType type) {
+    }
+
+    /**
+     * Called when a type is present in both mappings but has a different name on the side that wasn't used to join them.
+     */
+    default void typeRenamed(AtlasType from, AtlasType to) {
+    }
+
+    default void fieldAdded(AtlasType owner, AtlasField field) {
+    }
+
+    default void fieldRemoved(AtlasType owner, AtlasField field) {
+    }
+
+    default void fieldRenamed(AtlasType owner, AtlasField from, AtlasField to) {
+    }
+
+    /**
+     * Called when a field is present in both mappings but its type has changed, the field may also have been renamed.
+     */
+    default void fieldRetyped(AtlasType owner, AtlasField from, AtlasField to) {
+    }
+
+    default void methodAdded(AtlasType owner, AtlasMethod method) {
+    }
+
+    default void methodRemoved(AtlasType owner, AtlasMethod method) {
+    }
+
+    default void methodRenamed(AtlasType owner, AtlasMethod from, AtlasMethod to) {
+    }
+
+    /**
+     * Called when the only method with a given name on a type has a different descriptor in each mappings, the method may also have been renamed.
+     */
+    default void methodRetyped(AtlasType owner, AtlasMethod from, AtlasMethod to) {
+    }
+
+}
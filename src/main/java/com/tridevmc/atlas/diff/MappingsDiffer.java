@@ -0,0 +1,199 @@
+package com.tridevmc.atlas.diff;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMember;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares two mappings and reports added, removed, renamed and retyped types and members to a listener.
+ * <p>
+ * Types and members are joined by either their obfuscated or mapped names through the mappings indexes, so diffing is linear in the size of the mappings.
+ * Types are split into buckets that are compared in parallel, and nothing is kept once a type has been reported.
+ */
+public class MappingsDiffer {
+
+    private final AtlasMappings from, to;
+    private final boolean joinOnMappedNames;
+
+    /**
+     * Creates a differ that joins the two mappings on their obfuscated names, suited to comparing mappings for the same build.
+     *
+     * @param from the old mappings.
+     * @param to   the new mappings.
+     */
+    public MappingsDiffer(AtlasMappings from, AtlasMappings to) {
+        this(from, to, false);
+    }
+
+    /**
+     * Creates a differ between the two given mappings.
+     *
+     * @param from              the old mappings.
+     * @param to                the new mappings.
+     * @param joinOnMappedNames whether types and members are matched by their mapped names, suited to comparing releases whose obfuscated names are reassigned.
+     */
+    public MappingsDiffer(AtlasMappings from, AtlasMappings to, boolean joinOnMappedNames) {
+        this.from = from;
+        this.to = to;
+        this.joinOnMappedNames = joinOnMappedNames;
+    }
+
+    /**
+     * Compares the mappings on the common fork join pool, reporting every difference to the given listener.
+     *
+     * @param listener the listener to report differences to, must be thread safe.
+     */
+    public void diff(IMappingsDiffListener listener) {
+        this.diff(listener, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compares the mappings on the given pool, reporting every difference to the given listener.
+     *
+     * @param listener the listener to report differences to, must be thread safe.
+     * @param pool     the pool to compare buckets of types on.
+     */
+    public void diff(IMappingsDiffListener listener, ForkJoinPool pool) {
+        List<AtlasType> fromTypes = Lists.newArrayList();
+        List<AtlasType> toTypes = Lists.newArrayList();
+        this.from.getTypes().forEach(t -> flatten(t, fromTypes));
+        this.to.getTypes().forEach(t -> flatten(t, toTypes));
+
+        int bucketCount = pool.getParallelism() * 4;
+        List<List<AtlasType>> fromBuckets = this.bucket(fromTypes, bucketCount);
+        List<List<AtlasType>> toBuckets = this.bucket(toTypes, bucketCount);
+        List<Integer> buckets = Lists.newArrayListWithCapacity(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(i);
+        }
+        pool.submit(() -> buckets.parallelStream().forEach(bucket -> {
+            for (AtlasType fromType : fromBuckets.get(bucket)) {
+                AtlasType toType = this.to.findType(this.joinName(fromType), this.joinOnMappedNames);
+                if (toType == null) {
+                    listener.typeRemoved(fromType);
+                } else {
+                    if (!this.otherName(fromType).equals(this.otherName(toType))) {
+                        listener.typeRenamed(fromType, toType);
+                    }
+                    this.diffFields(fromType, toType, listener);
+                    this.diffMethods(fromType, toType, listener);
+                }
+            }
+            for (AtlasType toType : toBuckets.get(bucket)) {
+                if (this.from.findType(this.joinName(toType), this.joinOnMappedNames) == null) {
+                    listener.typeAdded(toType);
+                }
+            }
+        })).join();
+    }
+
+    private void diffFields(AtlasType fromType, AtlasType toType, IMappingsDiffListener listener) {
+        for (AtlasField fromField : fromType.getFields()) {
+            AtlasField toField = toType.findField(this.joinName(fromField), this.joinOnMappedNames);
+            if (toField == null) {
+                listener.fieldRemoved(fromType, fromField);
+            } else if (!this.joinTypeName(this.from, fromField.getType()).equals(this.joinTypeName(this.to, toField.getType()))) {
+                listener.fieldRetyped(toType, fromField, toField);
+            } else if (!this.otherName(fromField).equals(this.otherName(toField))) {
+                listener.fieldRenamed(toType, fromField, toField);
+            }
+        }
+        for (AtlasField toField : toType.getFields()) {
+            if (fromType.findField(this.joinName(toField), this.joinOnMappedNames) == null) {
+                listener.fieldAdded(toType, toField);
+            }
+        }
+    }
+
+    private void diffMethods(AtlasType fromType, AtlasType toType, IMappingsDiffListener listener) {
+        // Methods without an exact match are kept by name, a name with exactly one unmatched method on each side is reported as retyped.
+        ListMultimap<String, AtlasMethod> unmatchedFrom = null;
+        for (AtlasMethod fromMethod : fromType.getMethods()) {
+            AtlasMethod toMethod = toType.findMethod(this.joinName(fromMethod), this.joinDescriptor(fromMethod), this.joinOnMappedNames);
+            if (toMethod == null) {
+                if (unmatchedFrom == null) {
+                    unmatchedFrom = ArrayListMultimap.create();
+                }
+                unmatchedFrom.put(this.joinName(fromMethod), fromMethod);
+            } else if (!this.otherName(fromMethod).equals(this.otherName(toMethod))) {
+                listener.methodRenamed(toType, fromMethod, toMethod);
+            }
+        }
+        ListMultimap<String, AtlasMethod> unmatchedTo = null;
+        for (AtlasMethod toMethod : toType.getMethods()) {
+            if (fromType.findMethod(this.joinName(toMethod), this.joinDescriptor(toMethod), this.joinOnMappedNames) == null) {
+                if (unmatchedTo == null) {
+                    unmatchedTo = ArrayListMultimap.create();
+                }
+                unmatchedTo.put(this.joinName(toMethod), toMethod);
+            }
+        }
+
+        Set<String> retyped = Sets.newHashSet();
+        if (unmatchedFrom != null) {
+            for (String name : unmatchedFrom.keySet()) {
+                List<AtlasMethod> fromMethods = unmatchedFrom.get(name);
+                List<AtlasMethod> toMethods = unmatchedTo == null ? null : unmatchedTo.get(name);
+                if (toMethods != null && fromMethods.size() == 1 && toMethods.size() == 1) {
+                    listener.methodRetyped(toType, fromMethods.get(0), toMethods.get(0));
+                    retyped.add(name);
+                } else {
+                    fromMethods.forEach(m -> listener.methodRemoved(fromType, m));
+                }
+            }
+        }
+        if (unmatchedTo != null) {
+            unmatchedTo.forEach((name, method) -> {
+                if (!retyped.contains(name)) {
+                    listener.methodAdded(toType, method);
+                }
+            });
+        }
+    }
+
+    private List<List<AtlasType>> bucket(List<AtlasType> types, int bucketCount) {
+        List<List<AtlasType>> buckets = Lists.newArrayListWithCapacity(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(Lists.newArrayList());
+        }
+        for (AtlasType type : types) {
+            buckets.get(Math.floorMod(this.joinName(type).hashCode(), bucketCount)).add(type);
+        }
+        return buckets;
+    }
+
+    private static void flatten(AtlasType type, List<AtlasType> types) {
+        types.add(type);
+        type.getChildren().forEach(c -> flatten(c, types));
+    }
+
+    private String joinName(AtlasMember member) {
+        return this.joinOnMappedNames ? member.getMappedName() : member.getObfuscatedName();
+    }
+
+    private String otherName(AtlasMember member) {
+        return this.joinOnMappedNames ? member.getObfuscatedName() : member.getMappedName();
+    }
+
+    private String joinDescriptor(AtlasMethod method) {
+        return this.joinOnMappedNames ? method.getMappedDescriptor() : method.getObfuscatedDescriptor();
+    }
+
+    /**
+     * Converts a member type, which is always stored mapped, to the names the mappings are joined on so renamed types aren't reported as retyped members.
+     */
+    private String joinTypeName(AtlasMappings mappings, String type) {
+        return String.valueOf(this.joinOnMappedNames ? type : AtlasMember.mapElementType(type, mappings::getTypeNameObfuscated));
+    }
+
+}
@@ -45,9 +45,18 @@ public class AtlasField extends AtlasMember {
     private final transient AtlasType parent;
 
     public AtlasField(AtlasType parent, String obfuscatedName, String mappedName, String type) {
-        super(obfuscatedName, mappedName);
+        super(parent.getMappings().getSymbols().intern(obfuscatedName), parent.getMappings().getSymbols().intern(mappedName));
         this.parent = parent;
-        this.type = type;
+        this.type = parent.getMappings().getSymbols().intern(type);
+    }
+
+    /**
+     * Gets the type that this field belongs to.
+     *
+     * @return the type declaring this field.
+     */
+    public AtlasType getParent() {
+        return parent;
     }
 
     /**
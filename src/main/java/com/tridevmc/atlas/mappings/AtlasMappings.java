@@ -1,9 +1,12 @@
 package com.tridevmc.atlas.mappings;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -17,10 +20,16 @@ public class AtlasMappings {
     public static class Builder {
         private String name, dateGenerated;
         private List<AtlasType.Builder> types = Lists.newArrayList();
+        private final SymbolTable symbols;
 
         public Builder(String name, String dateGenerated) {
+            this(name, dateGenerated, new SymbolTable());
+        }
+
+        public Builder(String name, String dateGenerated, SymbolTable symbols) {
             this.name = name;
             this.dateGenerated = dateGenerated;
+            this.symbols = symbols;
         }
 
         public Builder addType(AtlasType.Builder type) {
@@ -28,18 +37,130 @@ public class AtlasMappings {
             return this;
         }
 
+        /**
+         * Adds a type that was already built as part of other mappings, the type and its children are shared rather than copied.
+         * <p>
+         * The type keeps the descriptors and member indexes it was built with, so it must only be shared with mappings that name every type it refers to the same way.
+         * The type and its children are rebound to the built mappings, so {@link AtlasType#getMappings()} returns the newest mappings they were added to
+         * and older mappings aren't kept alive by the types they share.
+         *
+         * @param type the type to share.
+         * @return this builder.
+         */
+        public Builder addType(AtlasType type) {
+            this.types.add(AtlasType.Builder.of(type));
+            return this;
+        }
+
+        /**
+         * Builds the mappings, method descriptors and member indexes are computed the first time each type is searched for a method.
+         *
+         * @return the built mappings.
+         */
         public AtlasMappings build() {
-            return new AtlasMappings(this.name, this.dateGenerated, this.types);
+            return new AtlasMappings(this.name, this.dateGenerated, this.symbols, this.types, false, false);
+        }
+
+        /**
+         * Builds the mappings, computing every method descriptor and member index up front so lookups made while remapping never have to.
+         *
+         * @param parallel whether the descriptors and member indexes should be computed across types in parallel.
+         * @return the built mappings.
+         */
+        public AtlasMappings build(boolean parallel) {
+            return new AtlasMappings(this.name, this.dateGenerated, this.symbols, this.types, true, parallel);
         }
     }
 
     private final String name, dateGenerated;
+    private final transient SymbolTable symbols;
     private final ImmutableList<AtlasType> types;
+    private final ImmutableMap<String, AtlasType> typesByObfuscatedName, typesByMappedName;
 
-    private AtlasMappings(String name, String dateGenerated, List<AtlasType.Builder> types) {
+    /**
+     * Creates an empty set of mappings for implementations that store or load their types differently, such implementations must override the type lookup methods.
+     *
+     * @param name          the name of the mappings.
+     * @param dateGenerated the date the mappings were generated in ISO format.
+     * @param symbols       the symbol table names are interned in.
+     */
+    protected AtlasMappings(String name, String dateGenerated, SymbolTable symbols) {
         this.name = name;
         this.dateGenerated = dateGenerated;
+        this.symbols = symbols;
+        this.types = ImmutableList.of();
+        this.typesByObfuscatedName = ImmutableMap.of();
+        this.typesByMappedName = ImmutableMap.of();
+    }
+
+    private AtlasMappings(String name, String dateGenerated, SymbolTable symbols, List<AtlasType.Builder> types, boolean eager, boolean parallel) {
+        this.name = name;
+        this.dateGenerated = dateGenerated;
+        this.symbols = symbols;
         this.types = ImmutableList.copyOf(types.stream().map(t -> t.build(this)).collect(Collectors.toList()));
+        // Shared types were indexed when they were first built, they only need rebinding to these mappings.
+        List<AtlasType> unindexed = Lists.newArrayListWithCapacity(types.size());
+        for (int i = 0; i < types.size(); i++) {
+            if (types.get(i).isPrebuilt()) {
+                this.types.get(i).bind(this);
+            } else {
+                unindexed.add(this.types.get(i));
+            }
+        }
+
+        Map<String, AtlasType> obfuscatedIndex = Maps.newHashMap();
+        Map<String, AtlasType> mappedIndex = Maps.newHashMap();
+        this.types.forEach(t -> indexType(t, obfuscatedIndex, mappedIndex));
+        this.typesByObfuscatedName = ImmutableMap.copyOf(obfuscatedIndex);
+        this.typesByMappedName = ImmutableMap.copyOf(mappedIndex);
+        if (!eager) {
+            return;
+        }
+        // Member indexes depend on the type indexes above, every descriptor is computed here so remapping threads only ever read them.
+        // Descriptors and member indexes are published through volatile fields, and the parallel stream joins before the constructor returns.
+        if (parallel) {
+            unindexed.parallelStream().forEach(AtlasType::indexMembers);
+        } else {
+            unindexed.forEach(AtlasType::indexMembers);
+        }
+    }
+
+    /**
+     * Adds the given type and all of its children to the flat name indexes, nested types are keyed by their full name.
+     * <p>
+     * The first type seen with a given name wins, matching the behaviour of the old linear search.
+     */
+    private static void indexType(AtlasType type, Map<String, AtlasType> obfuscatedIndex, Map<String, AtlasType> mappedIndex) {
+        obfuscatedIndex.putIfAbsent(type.getObfuscatedName(), type);
+        mappedIndex.putIfAbsent(type.getMappedName(), type);
+        for (AtlasType child : type.getChildren()) {
+            indexType(child, obfuscatedIndex, mappedIndex);
+        }
+    }
+
+    /**
+     * Builds a type that belongs to these mappings along with its children and their member indexes, for use by implementations that create types on demand.
+     * <p>
+     * Any method descriptors that weren't supplied to the builders are resolved against these mappings.
+     *
+     * @param type the builder of the type to create.
+     * @return the built type.
+     */
+    protected final AtlasType materialize(AtlasType.Builder type) {
+        AtlasType built = type.build(this);
+        built.indexMembers();
+        return built;
+    }
+
+    /**
+     * Gets a type matching the given full name without allocating an optional, nested types use their full "$" separated name.
+     *
+     * @param name           the full name of the type to get.
+     * @param fromMappedName whether or not the search is to be performed using mapped or unmapped names.
+     * @return the matching type, or null if no such type exists.
+     */
+    public AtlasType findType(String name, boolean fromMappedName) {
+        return fromMappedName ? this.typesByMappedName.get(name) : this.typesByObfuscatedName.get(name);
     }
 
     /**
@@ -50,11 +171,7 @@ public class AtlasMappings {
      * @return an optional of the matching type, or an empty optional if no such type exists.
      */
     public Optional<AtlasType> getType(String name, boolean fromMappedName) {
-        if (name.contains("$")) {
-            String[] splitName = name.split("\\$");
-            return this.getType(splitName[0], fromMappedName).flatMap(t -> t.getChild(splitName, fromMappedName));
-        }
-        return this.types.stream().filter(t -> fromMappedName ? t.getMappedName().equals(name) : t.getObfuscatedName().equals(name)).findAny();
+        return Optional.ofNullable(this.findType(name, fromMappedName));
     }
 
     /**
@@ -74,7 +191,8 @@ public class AtlasMappings {
      * @return the name after mapping has been applied, or the original if the name couldn't be mapped.
      */
     public String getTypeNameMapped(String name) {
-        return this.getTypeMapped(name).map(AtlasMember::getMappedName).orElse(name);
+        AtlasType type = this.findType(name, false);
+        return type == null ? name : type.getMappedName();
     }
 
     /**
@@ -94,7 +212,30 @@ public class AtlasMappings {
      * @return the name after obfuscation has been applied, or the original if the name couldn't be obfuscated.
      */
     public String getTypeNameObfuscated(String name) {
-        return this.getTypeObfuscated(name).map(AtlasMember::getObfuscatedName).orElse(name);
+        AtlasType type = this.findType(name, true);
+        return type == null ? name : type.getObfuscatedName();
+    }
+
+    /**
+     * Chains these mappings with the given mappings, creating a single table that maps the obfuscated names of these mappings straight to the mapped names of the next.
+     * <p>
+     * The mapped names of these mappings are looked up as obfuscated names in the next mappings, so obf to srg mappings composed with srg to named mappings give obf to named mappings.
+     * Entries missing from the next mappings keep their current mapped names.
+     *
+     * @param next the mappings to apply after these mappings.
+     * @return the composed mappings.
+     */
+    public AtlasMappings compose(AtlasMappings next) {
+        return MappingsComposer.compose(this, next);
+    }
+
+    /**
+     * Creates a copy of these mappings with the obfuscated and mapped names swapped, type references on members are converted to match.
+     *
+     * @return the inverted mappings.
+     */
+    public AtlasMappings invert() {
+        return MappingsComposer.invert(this);
     }
 
     /**
@@ -115,6 +256,15 @@ public class AtlasMappings {
         return dateGenerated;
     }
 
+    /**
+     * Gets the symbol table that names used by the types and members of these mappings are interned in.
+     *
+     * @return the symbol table of the mappings.
+     */
+    public SymbolTable getSymbols() {
+        return this.symbols;
+    }
+
     /**
      * Gets an immutable list of all of the types stored in the mappings.
      *
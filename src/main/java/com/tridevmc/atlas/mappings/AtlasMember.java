@@ -1,10 +1,12 @@
 package com.tridevmc.atlas.mappings;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.collect.ImmutableMap;
 import org.objectweb.asm.Type;
 
 import java.util.Arrays;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -22,8 +24,44 @@ public abstract class AtlasMember {
                     Type.FLOAT_TYPE, Type.LONG_TYPE, Type.DOUBLE_TYPE})
                     .collect(Collectors.toMap(Type::getClassName, Type::getDescriptor)));
 
+    private static final CharMatcher ARRAY_BRACKETS = CharMatcher.anyOf("[]");
+
     public static String convertToDescriptorType(String name) {
-        return classPrimitiveNames.getOrDefault(name.replaceAll("\\]|\\[", ""), "L" + name + ";");
+        String primitive = classPrimitiveNames.get(ARRAY_BRACKETS.removeFrom(name));
+        return primitive != null ? primitive : "L" + name + ";";
+    }
+
+    /**
+     * Converts a type name as stored on members into a descriptor, array suffixes such as "[][]" become leading "[" characters.
+     *
+     * @param type the type name to convert.
+     * @return the descriptor of the type.
+     */
+    public static String convertToDescriptor(String type) {
+        int arrayStart = type.indexOf('[');
+        if (arrayStart < 0) {
+            return convertToDescriptorType(type);
+        }
+        StringBuilder descriptor = new StringBuilder();
+        for (int i = arrayStart; i < type.length(); i += 2) {
+            descriptor.append('[');
+        }
+        return descriptor.append(convertToDescriptorType(type.substring(0, arrayStart))).toString();
+    }
+
+    /**
+     * Maps the element type of a type name as stored on members, keeping any array suffix such as "[][]" intact.
+     *
+     * @param type   the type name to map, may be null or empty.
+     * @param mapper the function to map the element type with.
+     * @return the mapped type name, or the given type if it was null or empty.
+     */
+    public static String mapElementType(String type, Function<String, String> mapper) {
+        if (type == null || type.isEmpty()) {
+            return type;
+        }
+        int arrayStart = type.indexOf('[');
+        return arrayStart < 0 ? mapper.apply(type) : mapper.apply(type.substring(0, arrayStart)) + type.substring(arrayStart);
     }
 
     private final String obfuscatedName, mappedName;
@@ -4,6 +4,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Used to represent mappings provided for a method, contains type references for the arguments and return type.
@@ -18,6 +19,7 @@ public class AtlasMethod extends AtlasMember {
         private String obfuscatedName, mappedName;
         private String returnType;
         private List<String> argumentTypes;
+        private String obfuscatedDescriptor, mappedDescriptor;
 
         public Builder(String obfuscatedName, String mappedName, String returnType, List<String> argumentTypes) {
             this.obfuscatedName = obfuscatedName;
@@ -26,8 +28,25 @@ public class AtlasMethod extends AtlasMember {
             this.argumentTypes = argumentTypes;
         }
 
+        /**
+         * Supplies descriptors that were computed ahead of time, such as those stored in binary mappings, so they aren't rebuilt from the argument types.
+         *
+         * @param obfuscatedDescriptor the descriptor of the method using obfuscated names.
+         * @param mappedDescriptor     the descriptor of the method using mapped names.
+         * @return this builder.
+         */
+        public Builder setDescriptors(String obfuscatedDescriptor, String mappedDescriptor) {
+            this.obfuscatedDescriptor = obfuscatedDescriptor;
+            this.mappedDescriptor = mappedDescriptor;
+            return this;
+        }
+
         public AtlasMethod build(AtlasType parent) {
-            return new AtlasMethod(parent, obfuscatedName, mappedName, returnType, argumentTypes);
+            AtlasMethod method = new AtlasMethod(parent, obfuscatedName, mappedName, returnType, argumentTypes);
+            SymbolTable symbols = parent.getMappings().getSymbols();
+            method.obfuscatedDescriptor = symbols.intern(this.obfuscatedDescriptor);
+            method.mappedDescriptor = symbols.intern(this.mappedDescriptor);
+            return method;
         }
     }
 
@@ -35,14 +54,24 @@ public class AtlasMethod extends AtlasMember {
     public final ImmutableList<String> argumentTypes;
     private final transient AtlasType parent;
 
-    private transient String obfuscatedDescriptor = null;
-    private transient String mappedDescriptor = null;
+    private transient volatile String obfuscatedDescriptor = null;
+    private transient volatile String mappedDescriptor = null;
 
     public AtlasMethod(AtlasType parent, String obfuscatedName, String mappedName, String returnType, List<String> argumentTypes) {
-        super(obfuscatedName, mappedName);
+        super(parent.getMappings().getSymbols().intern(obfuscatedName), parent.getMappings().getSymbols().intern(mappedName));
+        SymbolTable symbols = parent.getMappings().getSymbols();
         this.parent = parent;
-        this.returnType = returnType;
-        this.argumentTypes = ImmutableList.copyOf(argumentTypes);
+        this.returnType = symbols.intern(returnType);
+        this.argumentTypes = ImmutableList.copyOf(argumentTypes.stream().map(symbols::intern).collect(Collectors.toList()));
+    }
+
+    /**
+     * Gets the type that this method belongs to.
+     *
+     * @return the type declaring this method.
+     */
+    public AtlasType getParent() {
+        return parent;
     }
 
     /**
@@ -90,9 +119,9 @@ public class AtlasMethod extends AtlasMember {
      *
      * @return the descriptor for this method with obfuscated names.
      */
-    private String getObfuscatedDescriptor() {
+    public String getObfuscatedDescriptor() {
         if (this.obfuscatedDescriptor == null) {
-            this.obfuscatedDescriptor = this.getDescriptor(false);
+            this.obfuscatedDescriptor = this.parent.getMappings().getSymbols().intern(this.getDescriptor(false));
         }
         return this.obfuscatedDescriptor;
     }
@@ -102,9 +131,9 @@ public class AtlasMethod extends AtlasMember {
      *
      * @return the descriptor for this method with mapped names.
      */
-    private String getMappedDescriptor() {
+    public String getMappedDescriptor() {
         if (this.mappedDescriptor == null) {
-            this.mappedDescriptor = this.getDescriptor(true);
+            this.mappedDescriptor = this.parent.getMappings().getSymbols().intern(this.getDescriptor(true));
         }
         return this.mappedDescriptor;
     }
@@ -116,18 +145,19 @@ public class AtlasMethod extends AtlasMember {
      * @return a descriptor matching the method and given arguments.
      */
     private String getDescriptor(boolean mapped) {
-        StringBuilder descriptorArgs = new StringBuilder();
+        StringBuilder descriptor = new StringBuilder().append('(');
         for (String argumentType : this.getArgumentTypes()) {
-            argumentType = simplifyType(descriptorArgs, argumentType);
-            String typeName = AtlasMember.convertToDescriptorType(mapped ? this.parent.getMappings().getTypeNameMapped(argumentType) : this.parent.getMappings().getTypeNameObfuscated(argumentType));
-            descriptorArgs.append(typeName);
+            this.appendType(descriptor, argumentType, mapped);
         }
-        StringBuilder returnDescriptor = new StringBuilder();
-        String returnType = this.getReturnType();
-        returnType = simplifyType(returnDescriptor, returnType);
-        returnType = AtlasMember.convertToDescriptorType(mapped ? this.parent.getMappings().getTypeNameMapped(returnType) : this.parent.getMappings().getTypeNameObfuscated(returnType));
-        returnDescriptor.append(returnType);
-        return String.format("(%s)%s", descriptorArgs, returnDescriptor);
+        descriptor.append(')');
+        this.appendType(descriptor, this.getReturnType(), mapped);
+        return descriptor.toString();
+    }
+
+    private void appendType(StringBuilder descriptor, String type, boolean mapped) {
+        type = simplifyType(descriptor, type);
+        AtlasMappings mappings = this.parent.getMappings();
+        descriptor.append(AtlasMember.convertToDescriptorType(mapped ? mappings.getTypeNameMapped(type) : mappings.getTypeNameObfuscated(type)));
     }
 
     private String simplifyType(StringBuilder descriptorArgs, String argumentType) {
@@ -2,12 +2,18 @@ package com.tridevmc.atlas.mappings;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Predicate;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -26,6 +32,7 @@ public class AtlasType extends AtlasMember {
         private final List<AtlasType.Builder> children;
         private final List<IMemberBuilder<? extends AtlasMember>> members;
         private AtlasType built;
+        private boolean prebuilt;
 
         public Builder(String obfuscatedName, String mappedName) {
             this.obfuscatedName = obfuscatedName;
@@ -34,6 +41,23 @@ public class AtlasType extends AtlasMember {
             this.children = Lists.newArrayList();
         }
 
+        /**
+         * Creates a builder that always builds the given type, allowing a type to be shared between mappings.
+         */
+        static Builder of(AtlasType type) {
+            Builder builder = new Builder(type.getObfuscatedName(), type.getMappedName());
+            builder.built = type;
+            builder.prebuilt = true;
+            return builder;
+        }
+
+        /**
+         * Determines if this builder wraps a type that was already built, such types already have their member indexes.
+         */
+        boolean isPrebuilt() {
+            return this.prebuilt;
+        }
+
         public Builder getChild(String obfuscatedName) {
             for(AtlasType.Builder b : children) {
                 if(b.getObfuscatedName().equals(obfuscatedName)) return b;
@@ -58,6 +82,17 @@ public class AtlasType extends AtlasMember {
             return this.addChild(fullName, child, 0);
         }
 
+        /**
+         * Adds a child directly to this type without validating its name, used when the nesting is already known.
+         *
+         * @param child the child type to add.
+         * @return this builder.
+         */
+        public Builder addChild(AtlasType.Builder child) {
+            this.children.add(child);
+            return this;
+        }
+
         public Builder addChild(String[] fullName, AtlasType.Builder child, int depth) {
             if (String.join("$", Arrays.copyOfRange(fullName, 0, depth + 1)).equals(this.obfuscatedName)) {
                 if (fullName.length - depth == 2) {
@@ -100,24 +135,76 @@ public class AtlasType extends AtlasMember {
         }
     }
 
-    private final transient AtlasMappings mappings;
+    // Rebound when the type is shared with newer mappings, so the mappings it was first built in can be collected.
+    private transient volatile AtlasMappings mappings;
 
     private final ImmutableList<AtlasType> children;
     private final ImmutableList<AtlasField> fields;
     private final ImmutableList<AtlasMethod> methods;
 
+    private final ImmutableMap<String, AtlasField> fieldsByObfuscatedName, fieldsByMappedName;
+    // Built by the mappings when they're built eagerly, otherwise on the first method lookup.
+    private volatile MethodIndex methodIndex;
+
     private AtlasType(AtlasMappings mappings, String obfuscatedName, String mappedName, List<AtlasType> children, List<IMemberBuilder<? extends AtlasMember>> members) {
-        super(obfuscatedName, mappedName);
+        super(mappings.getSymbols().intern(obfuscatedName), mappings.getSymbols().intern(mappedName));
         this.mappings = mappings;
         this.children = ImmutableList.copyOf(children);
         this.fields = ImmutableList.copyOf(members.stream().filter(m -> m instanceof AtlasField.Builder).map(m -> (AtlasField) m.build(this)).collect(Collectors.toList()));
         this.methods = ImmutableList.copyOf(members.stream().filter(m -> m instanceof AtlasMethod.Builder).map(m -> (AtlasMethod) m.build(this)).collect(Collectors.toList()));
+
+        Map<String, AtlasField> obfuscatedFields = Maps.newHashMap();
+        Map<String, AtlasField> mappedFields = Maps.newHashMap();
+        for (AtlasField field : this.fields) {
+            obfuscatedFields.putIfAbsent(field.getObfuscatedName(), field);
+            mappedFields.putIfAbsent(field.getMappedName(), field);
+        }
+        this.fieldsByObfuscatedName = ImmutableMap.copyOf(obfuscatedFields);
+        this.fieldsByMappedName = ImmutableMap.copyOf(mappedFields);
+    }
+
+    /**
+     * Builds the method indexes for this type and its children, keyed by name and descriptor in both directions.
+     * Every method descriptor is computed in the process.
+     * <p>
+     * Method descriptors depend on the names of other types, so this is called by mappings built eagerly once all of their types have been indexed.
+     */
+    void indexMembers() {
+        this.methodIndex = new MethodIndex(this.methods);
+        this.children.forEach(AtlasType::indexMembers);
+    }
+
+    /**
+     * Gets the method indexes of this type, building them if the mappings weren't built eagerly.
+     * <p>
+     * Threads racing to build the indexes build identical copies, so whichever is published last is as good as any other.
+     */
+    private MethodIndex getMethodIndex() {
+        MethodIndex index = this.methodIndex;
+        if (index == null) {
+            index = new MethodIndex(this.methods);
+            this.methodIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Binds this type and its children to the given mappings, called when the type is shared with newer mappings.
+     *
+     * @param mappings the mappings the type now belongs to.
+     */
+    void bind(AtlasMappings mappings) {
+        this.mappings = mappings;
+        this.children.forEach(child -> child.bind(mappings));
     }
 
     /**
      * Gets the AtlasMappings that this type is part of.
+     * <p>
+     * Types shared between mappings, such as those kept by an incremental reload, return the mappings they were most recently added to.
+     * Their names and member indexes are still valid for every mappings they're shared with.
      *
-     * @return the AtlasMappings this type is part of.
+     * @return the AtlasMappings this type was last built into.
      */
     public AtlasMappings getMappings() {
         return mappings;
@@ -205,7 +292,18 @@ public class AtlasType extends AtlasMember {
      * @return an optional of the field found, or an empty optional if no such field exists.
      */
     public Optional<AtlasField> getField(String name, boolean fromMappedName) {
-        return this.getFields().stream().filter((m) -> fromMappedName ? m.getMappedName().equals(name) : m.getObfuscatedName().equals(name)).findAny();
+        return Optional.ofNullable(this.findField(name, fromMappedName));
+    }
+
+    /**
+     * Gets a field matching the given name without allocating an optional, intended for hot paths such as remapping.
+     *
+     * @param name           the name of the field.
+     * @param fromMappedName whether or not the search is to be performed using mapped or unmapped names.
+     * @return the field found, or null if no such field exists.
+     */
+    public AtlasField findField(String name, boolean fromMappedName) {
+        return fromMappedName ? this.fieldsByMappedName.get(name) : this.fieldsByObfuscatedName.get(name);
     }
 
     /**
@@ -239,7 +337,20 @@ public class AtlasType extends AtlasMember {
      * @return an optional of the method found, or an empty optional if no such method exists.
      */
     public Optional<AtlasMethod> getMethod(String name, String descriptor, boolean fromMappedName) {
-        return this.getMethods().stream().filter((m) -> fromMappedName ? m.matchesMapped(name, descriptor) : m.matchesObfuscated(name, descriptor)).findAny();
+        return Optional.ofNullable(this.findMethod(name, descriptor, fromMappedName));
+    }
+
+    /**
+     * Gets a method matching the given name and descriptor without allocating an optional, intended for hot paths such as remapping.
+     *
+     * @param name           the name of the method.
+     * @param descriptor     the descriptor of the method.
+     * @param fromMappedName whether or not the search is to be performed using mapped or unmapped names.
+     * @return the method found, or null if no such method exists.
+     */
+    public AtlasMethod findMethod(String name, String descriptor, boolean fromMappedName) {
+        MethodIndex index = this.getMethodIndex();
+        return fromMappedName ? index.byMappedSignature.get(name, descriptor) : index.byObfuscatedSignature.get(name, descriptor);
     }
 
     @Override
@@ -251,4 +362,27 @@ public class AtlasType extends AtlasMember {
                 .add("methods", this.methods)
                 .toString();
     }
+
+    /**
+     * The methods of a type keyed by name and descriptor, immutable so it can be published through a single volatile write.
+     */
+    private static final class MethodIndex {
+        private final ImmutableTable<String, String, AtlasMethod> byObfuscatedSignature, byMappedSignature;
+
+        private MethodIndex(List<AtlasMethod> methods) {
+            Table<String, String, AtlasMethod> obfuscatedMethods = HashBasedTable.create();
+            Table<String, String, AtlasMethod> mappedMethods = HashBasedTable.create();
+            for (AtlasMethod method : methods) {
+                if (!obfuscatedMethods.contains(method.getObfuscatedName(), method.getObfuscatedDescriptor())) {
+                    obfuscatedMethods.put(method.getObfuscatedName(), method.getObfuscatedDescriptor(), method);
+                }
+                if (!mappedMethods.contains(method.getMappedName(), method.getMappedDescriptor())) {
+                    mappedMethods.put(method.getMappedName(), method.getMappedDescriptor(), method);
+                }
+            }
+            this.byObfuscatedSignature = ImmutableTable.copyOf(obfuscatedMethods);
+            this.byMappedSignature = ImmutableTable.copyOf(mappedMethods);
+        }
+    }
+
 }
@@ -0,0 +1,104 @@
+package com.tridevmc.atlas.mappings;
+
+import com.google.common.collect.ImmutableList;
+import org.objectweb.asm.commons.Remapper;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates new mappings by chaining or inverting existing mappings, used by {@link AtlasMappings#compose(AtlasMappings)} and {@link AtlasMappings#invert()}.
+ * <p>
+ * Types and members are joined through the name indexes of the mappings, and top-level types are processed in parallel.
+ */
+final class MappingsComposer {
+
+    private MappingsComposer() {
+    }
+
+    /**
+     * Chains two mappings together, the mapped names of the first are looked up as obfuscated names in the second.
+     * <p>
+     * Entries of the first mappings that aren't present in the second keep their mapped names, entries only present in the second are dropped
+     * as they can never be reached from the obfuscated names of the first.
+     */
+    static AtlasMappings compose(AtlasMappings first, AtlasMappings second) {
+        Remapper descriptorRemapper = new Remapper() {
+            @Override
+            public String map(String internalName) {
+                return second.getTypeNameMapped(internalName);
+            }
+        };
+        Function<String, String> typeRemapper = type -> AtlasMember.mapElementType(type, second::getTypeNameMapped);
+
+        List<AtlasType.Builder> types = first.getTypes().parallelStream()
+                .map(t -> composeType(t, second, typeRemapper, descriptorRemapper))
+                .collect(Collectors.toList());
+        AtlasMappings.Builder builder = new AtlasMappings.Builder(first.getName() + "+" + second.getName(), now(), first.getSymbols());
+        types.forEach(builder::addType);
+        return builder.build(true);
+    }
+
+    /**
+     * Inverts mappings so their mapped names become obfuscated names and vice versa, type references are converted to the new mapped names.
+     */
+    static AtlasMappings invert(AtlasMappings mappings) {
+        Function<String, String> typeRemapper = type -> AtlasMember.mapElementType(type, mappings::getTypeNameObfuscated);
+
+        List<AtlasType.Builder> types = mappings.getTypes().parallelStream()
+                .map(t -> invertType(t, typeRemapper))
+                .collect(Collectors.toList());
+        AtlasMappings.Builder builder = new AtlasMappings.Builder(mappings.getName() + "-inverted", now(), mappings.getSymbols());
+        types.forEach(builder::addType);
+        return builder.build(true);
+    }
+
+    private static AtlasType.Builder composeType(AtlasType type, AtlasMappings second, Function<String, String> typeRemapper, Remapper descriptorRemapper) {
+        AtlasType secondType = second.findType(type.getMappedName(), false);
+        AtlasType.Builder builder = new AtlasType.Builder(type.getObfuscatedName(), secondType == null ? type.getMappedName() : secondType.getMappedName());
+        for (AtlasField field : type.getFields()) {
+            AtlasField secondField = secondType == null ? null : secondType.findField(field.getMappedName(), false);
+            builder.addMember(new AtlasField.Builder(field.getObfuscatedName(),
+                    secondField == null ? field.getMappedName() : secondField.getMappedName(),
+                    typeRemapper.apply(field.getType())));
+        }
+        for (AtlasMethod method : type.getMethods()) {
+            AtlasMethod secondMethod = secondType == null ? null : secondType.findMethod(method.getMappedName(), method.getMappedDescriptor(), false);
+            builder.addMember(new AtlasMethod.Builder(method.getObfuscatedName(),
+                    secondMethod == null ? method.getMappedName() : secondMethod.getMappedName(),
+                    typeRemapper.apply(method.getReturnType()),
+                    method.getArgumentTypes().stream().map(typeRemapper).collect(ImmutableList.toImmutableList()))
+                    .setDescriptors(method.getObfuscatedDescriptor(),
+                            secondMethod == null ? descriptorRemapper.mapMethodDesc(method.getMappedDescriptor()) : secondMethod.getMappedDescriptor()));
+        }
+        for (AtlasType child : type.getChildren()) {
+            builder.addChild(composeType(child, second, typeRemapper, descriptorRemapper));
+        }
+        return builder;
+    }
+
+    private static AtlasType.Builder invertType(AtlasType type, Function<String, String> typeRemapper) {
+        AtlasType.Builder builder = new AtlasType.Builder(type.getMappedName(), type.getObfuscatedName());
+        for (AtlasField field : type.getFields()) {
+            builder.addMember(new AtlasField.Builder(field.getMappedName(), field.getObfuscatedName(), typeRemapper.apply(field.getType())));
+        }
+        for (AtlasMethod method : type.getMethods()) {
+            builder.addMember(new AtlasMethod.Builder(method.getMappedName(), method.getObfuscatedName(),
+                    typeRemapper.apply(method.getReturnType()),
+                    method.getArgumentTypes().stream().map(typeRemapper).collect(ImmutableList.toImmutableList()))
+                    .setDescriptors(method.getMappedDescriptor(), method.getObfuscatedDescriptor()));
+        }
+        for (AtlasType child : type.getChildren()) {
+            builder.addChild(invertType(child, typeRemapper));
+        }
+        return builder;
+    }
+
+    private static String now() {
+        return OffsetDateTime.now().format(DateTimeFormatter.ISO_DATE);
+    }
+
+}
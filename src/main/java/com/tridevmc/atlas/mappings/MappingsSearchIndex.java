@@ -0,0 +1,213 @@
+package com.tridevmc.atlas.mappings;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Answers partial name queries over mappings, such as every type in a package or every method whose name starts with a prefix.
+ * <p>
+ * Types and members are copied into arrays sorted by name once when the index is created, for both obfuscated and mapped names.
+ * Every query is then a pair of binary searches, and the matches are returned as a view over a range of the sorted array.
+ * The index is immutable and safe to share between threads, it doesn't see types created after it was built.
+ */
+public class MappingsSearchIndex {
+
+    /**
+     * Separates an owner or package from the name that follows it in a sort key, sorts before every character used in names.
+     */
+    private static final char SEPARATOR = '\0';
+
+    private final Direction obfuscated, mapped;
+
+    public MappingsSearchIndex(AtlasMappings mappings) {
+        List<AtlasType> types = Lists.newArrayList();
+        mappings.getTypes().forEach(t -> flatten(t, types));
+        this.obfuscated = new Direction(types, false);
+        this.mapped = new Direction(types, true);
+    }
+
+    private static void flatten(AtlasType type, List<AtlasType> types) {
+        types.add(type);
+        for (AtlasType child : type.getChildren()) {
+            flatten(child, types);
+        }
+    }
+
+    private Direction direction(boolean fromMappedName) {
+        return fromMappedName ? this.mapped : this.obfuscated;
+    }
+
+    /**
+     * Gets every type whose full name starts with the given prefix, sorted by name.
+     *
+     * @param prefix         the prefix of the full name, using "/" to separate packages.
+     * @param fromMappedName whether or not the search is to be performed using mapped or unmapped names.
+     * @return the matching types.
+     */
+    public List<AtlasType> findTypes(String prefix, boolean fromMappedName) {
+        return this.direction(fromMappedName).typesByName.find(prefix);
+    }
+
+    /**
+     * Gets every type whose name without its package starts with the given prefix, sorted by that name.
+     *
+     * @param prefix         the prefix of the name without its package, nested types include their enclosing types.
+     * @param fromMappedName whether or not the search is to be performed using mapped or unmapped names.
+     * @return the matching types.
+     */
+    public List<AtlasType> findTypesBySimpleName(String prefix, boolean fromMappedName) {
+        return this.direction(fromMappedName).typesBySimpleName.find(prefix);
+    }
+
+    /**
+     * Gets every type in the given package, sorted by package and then name.
+     *
+     * @param packageName    the package using "/" as a separator, or an empty string for the default package.
+     * @param recursive      whether types in packages nested in the given package are included.
+     * @param fromMappedName whether or not the search is to be performed using mapped or unmapped names.
+     * @return the types in the package.
+     */
+    public List<AtlasType> findTypesInPackage(String packageName, boolean recursive, boolean fromMappedName) {
+        SortedNames<AtlasType> typesByPackage = this.direction(fromMappedName).typesByPackage;
+        List<AtlasType> types = typesByPackage.find(packageName + SEPARATOR);
+        if (!recursive) {
+            return types;
+        }
+        if (packageName.isEmpty()) {
+            return typesByPackage.values;
+        }
+        return ImmutableList.<AtlasType>builder().addAll(types).addAll(typesByPackage.find(packageName + '/')).build();
+    }
+
+    /**
+     * Gets every field whose name starts with the given prefix across all types, sorted by name.
+     *
+     * @param prefix         the prefix of the field name.
+     * @param fromMappedName whether or not the search is to be performed using mapped or unmapped names.
+     * @return the matching fields, see {@link AtlasField#getParent()} for their owners.
+     */
+    public List<AtlasField> findFields(String prefix, boolean fromMappedName) {
+        return this.direction(fromMappedName).fieldsByName.find(prefix);
+    }
+
+    /**
+     * Gets every field of the given type whose name starts with the given prefix, sorted by name.
+     *
+     * @param owner          the full name of the type declaring the fields.
+     * @param prefix         the prefix of the field name, or an empty string for every field.
+     * @param fromMappedName whether or not the search is to be performed using mapped or unmapped names.
+     * @return the matching fields.
+     */
+    public List<AtlasField> findFields(String owner, String prefix, boolean fromMappedName) {
+        return this.direction(fromMappedName).fieldsByOwner.find(owner + SEPARATOR + prefix);
+    }
+
+    /**
+     * Gets every method whose name starts with the given prefix across all types, sorted by name.
+     *
+     * @param prefix         the prefix of the method name.
+     * @param fromMappedName whether or not the search is to be performed using mapped or unmapped names.
+     * @return the matching methods, see {@link AtlasMethod#getParent()} for their owners.
+     */
+    public List<AtlasMethod> findMethods(String prefix, boolean fromMappedName) {
+        return this.direction(fromMappedName).methodsByName.find(prefix);
+    }
+
+    /**
+     * Gets every method of the given type whose name starts with the given prefix, sorted by name.
+     *
+     * @param owner          the full name of the type declaring the methods.
+     * @param prefix         the prefix of the method name, or an empty string for every method.
+     * @param fromMappedName whether or not the search is to be performed using mapped or unmapped names.
+     * @return the matching methods.
+     */
+    public List<AtlasMethod> findMethods(String owner, String prefix, boolean fromMappedName) {
+        return this.direction(fromMappedName).methodsByOwner.find(owner + SEPARATOR + prefix);
+    }
+
+    /**
+     * The sorted arrays for one naming direction.
+     */
+    private static class Direction {
+        private final SortedNames<AtlasType> typesByName, typesBySimpleName, typesByPackage;
+        private final SortedNames<AtlasField> fieldsByName, fieldsByOwner;
+        private final SortedNames<AtlasMethod> methodsByName, methodsByOwner;
+
+        private Direction(List<AtlasType> types, boolean mapped) {
+            Function<AtlasMember, String> name = mapped ? AtlasMember::getMappedName : AtlasMember::getObfuscatedName;
+            List<AtlasField> fields = Lists.newArrayList();
+            List<AtlasMethod> methods = Lists.newArrayList();
+            for (AtlasType type : types) {
+                fields.addAll(type.getFields());
+                methods.addAll(type.getMethods());
+            }
+
+            this.typesByName = new SortedNames<>(types, name::apply);
+            this.typesBySimpleName = new SortedNames<>(types, t -> {
+                String fullName = name.apply(t);
+                return fullName.substring(fullName.lastIndexOf('/') + 1);
+            });
+            this.typesByPackage = new SortedNames<>(types, t -> {
+                String fullName = name.apply(t);
+                int split = fullName.lastIndexOf('/');
+                return split < 0 ? SEPARATOR + fullName : fullName.substring(0, split) + SEPARATOR + fullName.substring(split + 1);
+            });
+            this.fieldsByName = new SortedNames<>(fields, name::apply);
+            this.fieldsByOwner = new SortedNames<>(fields, f -> name.apply(f.getParent()) + SEPARATOR + name.apply(f));
+            this.methodsByName = new SortedNames<>(methods, name::apply);
+            this.methodsByOwner = new SortedNames<>(methods, m -> name.apply(m.getParent()) + SEPARATOR + name.apply(m));
+        }
+    }
+
+    /**
+     * Values sorted by a string key, values sharing a key prefix form a contiguous range.
+     */
+    private static class SortedNames<T> {
+        private final String[] keys;
+        private final ImmutableList<T> values;
+
+        private SortedNames(List<T> values, Function<T, String> key) {
+            Object[][] entries = new Object[values.size()][];
+            for (int i = 0; i < entries.length; i++) {
+                T value = values.get(i);
+                entries[i] = new Object[]{key.apply(value), value};
+            }
+            Arrays.parallelSort(entries, Comparator.comparing(entry -> (String) entry[0]));
+
+            this.keys = new String[entries.length];
+            ImmutableList.Builder<T> sortedValues = ImmutableList.builder();
+            for (int i = 0; i < entries.length; i++) {
+                this.keys[i] = (String) entries[i][0];
+                @SuppressWarnings("unchecked") T value = (T) entries[i][1];
+                sortedValues.add(value);
+            }
+            this.values = sortedValues.build();
+        }
+
+        private List<T> find(String prefix) {
+            return this.values.subList(this.lowerBound(prefix), this.lowerBound(prefix + Character.MAX_VALUE));
+        }
+
+        /**
+         * Finds the index of the first key that isn't less than the given key.
+         */
+        private int lowerBound(String key) {
+            int low = 0, high = this.keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (this.keys[middle].compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+}
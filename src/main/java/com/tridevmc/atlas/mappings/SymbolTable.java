@@ -0,0 +1,69 @@
+package com.tridevmc.atlas.mappings;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Stores canonical instances of the names used by types and members, names and type references repeat heavily across mappings so each distinct value is only kept once.
+ * <p>
+ * A single table may be shared between several AtlasMappings, allowing multiple mapping versions held in the same JVM to share their common names.
+ * Tables created with {@link #weak()} only hold names while something else still refers to them, for mappings that drop types they're done with.
+ */
+public class SymbolTable {
+
+    private final ConcurrentMap<String, String> symbols;
+    private final Interner<String> weakSymbols;
+
+    public SymbolTable() {
+        this.symbols = new ConcurrentHashMap<>();
+        this.weakSymbols = null;
+    }
+
+    private SymbolTable(Interner<String> weakSymbols) {
+        this.symbols = null;
+        this.weakSymbols = weakSymbols;
+    }
+
+    /**
+     * Creates a table that drops its canonical instances once nothing else refers to them.
+     *
+     * @return a new weak symbol table.
+     */
+    public static SymbolTable weak() {
+        return new SymbolTable(Interners.newWeakInterner());
+    }
+
+    /**
+     * Gets the canonical instance of the given symbol, storing it if it hasn't been seen before.
+     *
+     * @param symbol the symbol to intern, may be null.
+     * @return the canonical instance of the symbol, or null if the symbol was null.
+     */
+    public String intern(String symbol) {
+        if (symbol == null) {
+            return null;
+        }
+        if (this.weakSymbols != null) {
+            return this.weakSymbols.intern(symbol);
+        }
+        // Most symbols have been seen before, a plain get avoids the locking done by putIfAbsent.
+        String existing = this.symbols.get(symbol);
+        if (existing == null) {
+            existing = this.symbols.putIfAbsent(symbol, symbol);
+        }
+        return existing == null ? symbol : existing;
+    }
+
+    /**
+     * Gets the number of distinct symbols stored in the table, weak tables don't keep count as their symbols are collected.
+     *
+     * @return the number of distinct symbols, or -1 for a weak table.
+     */
+    public int size() {
+        return this.symbols == null ? -1 : this.symbols.size();
+    }
+
+}
@@ -0,0 +1,250 @@
+package com.tridevmc.atlas.read;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Describes the layout of the compact binary mappings format shared by the binary reader and writer.
+ * <p>
+ * All values are big-endian ints, every section after the string pool is made of fixed-size records so any entry can be found by index:
+ * <pre>
+ * header     magic, version, name, dateGenerated, stringCount, stringDataLength, typeCount, fieldCount, methodCount, argumentCount
+ * strings    stringCount + 1 offsets into the string data, followed by the UTF-8 string data
+ * types      obfuscatedName, mappedName, parent, firstField, fieldCount, firstMethod, methodCount
+ * fields     obfuscatedName, mappedName, type
+ * methods    obfuscatedName, mappedName, returnType, firstArgument, argumentCount, obfuscatedDescriptor, mappedDescriptor
+ * arguments  argumentType
+ * indexes    since version 2, a hash table of types by obfuscated name followed by one by mapped name
+ * </pre>
+ * Names are stored as indexes into the string pool, types are stored parents first so the children of a type directly follow it.
+ * <p>
+ * Each hash table starts with its slot count, a power of two, followed by that many slots of the name's {@link String#hashCode()} and the type index plus one.
+ * Empty slots hold zero, collisions are resolved by probing linearly from {@link #indexSlot(int, int)}.
+ * <p>
+ * References between records are checked against the counts in the header as they're read, a reference out of range fails with an "Invalid binary mappings" error.
+ */
+public final class BinaryMappingsFormat {
+
+    public static final int MAGIC = 0x41544C53; // "ATLS"
+    public static final int VERSION = 2;
+
+    public static final int HEADER_SIZE = 10 * Integer.BYTES;
+    public static final int TYPE_RECORD_SIZE = 7 * Integer.BYTES;
+    public static final int FIELD_RECORD_SIZE = 3 * Integer.BYTES;
+    public static final int METHOD_RECORD_SIZE = 7 * Integer.BYTES;
+    public static final int ARGUMENT_RECORD_SIZE = Integer.BYTES;
+    public static final int INDEX_SLOT_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * Used in place of a string index for null strings, and in place of a parent index for top-level types.
+     */
+    public static final int NONE = -1;
+
+    private BinaryMappingsFormat() {
+    }
+
+    /**
+     * Gets the slot a name's hash is first probed at in a type index.
+     *
+     * @param hash the hash code of the name.
+     * @param mask the slot count of the index minus one.
+     * @return the first slot to probe.
+     */
+    public static int indexSlot(int hash, int mask) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * The offsets of every section in a binary mappings buffer, read from and validated against its header.
+     */
+    static final class Layout {
+        final int version;
+        final int name, dateGenerated;
+        final int stringCount, stringDataLength, typeCount, fieldCount, methodCount, argumentCount;
+        final int stringOffsets, stringData, types, fields, methods, arguments, obfuscatedIndex, mappedIndex, end;
+
+        /**
+         * Reads the layout of the given buffer, every offset is absolute so the mappings must start at index zero of the buffer.
+         *
+         * @param buffer the buffer containing the mappings, see {@link ByteBuffer#slice()} for buffers that don't start at zero.
+         */
+        Layout(ByteBuffer buffer) {
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new RuntimeException("Buffer does not contain binary mappings");
+            }
+            this.version = buffer.getInt(4);
+            if (this.version < 1 || this.version > VERSION) {
+                throw new RuntimeException("Unsupported binary mappings version " + this.version + ", expected at most " + VERSION);
+            }
+            this.stringCount = buffer.getInt(16);
+            this.name = reference(buffer, 8, this.stringCount);
+            this.dateGenerated = reference(buffer, 12, this.stringCount);
+            this.stringDataLength = buffer.getInt(20);
+            this.typeCount = buffer.getInt(24);
+            this.fieldCount = buffer.getInt(28);
+            this.methodCount = buffer.getInt(32);
+            this.argumentCount = buffer.getInt(36);
+
+            // Each section is checked against the buffer before it's trusted, so corrupt counts can't send later reads out of bounds.
+            this.stringOffsets = HEADER_SIZE;
+            this.stringData = section(buffer, this.stringOffsets, this.stringCount + 1L, Integer.BYTES);
+            this.types = section(buffer, this.stringData, this.stringDataLength, 1);
+            this.fields = section(buffer, this.types, this.typeCount, TYPE_RECORD_SIZE);
+            this.methods = section(buffer, this.fields, this.fieldCount, FIELD_RECORD_SIZE);
+            this.arguments = section(buffer, this.methods, this.methodCount, METHOD_RECORD_SIZE);
+            int end = section(buffer, this.arguments, this.argumentCount, ARGUMENT_RECORD_SIZE);
+            if (this.version >= 2) {
+                this.obfuscatedIndex = end;
+                this.mappedIndex = index(buffer, this.obfuscatedIndex);
+                end = index(buffer, this.mappedIndex);
+            } else {
+                this.obfuscatedIndex = NONE;
+                this.mappedIndex = NONE;
+            }
+            this.end = end;
+        }
+
+        /**
+         * Gets the end of a section of records, checking that it fits in the buffer.
+         *
+         * @return the offset just past the section.
+         */
+        private static int section(ByteBuffer buffer, int start, long count, int recordSize) {
+            long end = start + count * recordSize;
+            if (count < 0 || end > buffer.limit()) {
+                throw new RuntimeException("Binary mappings are truncated, expected " + end + " bytes but found " + buffer.limit());
+            }
+            return (int) end;
+        }
+
+        /**
+         * Gets the end of the type index starting at the given offset, checking that it fits in the buffer and has a valid slot count.
+         *
+         * @return the offset just past the index.
+         */
+        private static int index(ByteBuffer buffer, int start) {
+            section(buffer, start, 1, Integer.BYTES);
+            int slots = buffer.getInt(start);
+            if (Integer.bitCount(slots) != 1) {
+                throw new RuntimeException("Binary mappings have an index with " + slots + " slots, expected a power of two");
+            }
+            return section(buffer, start + Integer.BYTES, slots, INDEX_SLOT_SIZE);
+        }
+
+        /**
+         * Decodes the string stored at the given index of the string pool.
+         *
+         * @param buffer the buffer the layout was read from.
+         * @param index  the index of the string, or {@link #NONE}.
+         * @return the decoded string, or null if the index was {@link #NONE}.
+         */
+        String string(ByteBuffer buffer, int index) {
+            if (index == NONE) {
+                return null;
+            }
+            int start = this.stringStart(buffer, index);
+            int end = this.stringEnd(buffer, index);
+            byte[] bytes = new byte[end - start];
+            ByteBuffer view = buffer.duplicate();
+            view.position(this.stringData + start);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Compares the string stored at the given index of the string pool with the given string without decoding it where possible.
+         *
+         * @param buffer the buffer the layout was read from.
+         * @param index  the index of the stored string, or {@link #NONE}.
+         * @param string the string to compare against.
+         * @return true if the strings are equal, false otherwise.
+         */
+        boolean stringEquals(ByteBuffer buffer, int index, String string) {
+            if (index == NONE) {
+                return string == null;
+            }
+            int start = this.stringData + this.stringStart(buffer, index);
+            int end = this.stringData + this.stringEnd(buffer, index);
+            if (end - start != string.length()) {
+                // Multi-byte characters can make equal strings differ in encoded length.
+                return end - start > string.length() && string.equals(this.string(buffer, index));
+            }
+            for (int i = 0; i < string.length(); i++) {
+                byte stored = buffer.get(start + i);
+                if (stored < 0) {
+                    return string.equals(this.string(buffer, index));
+                }
+                if (stored != string.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    
+        /**
+         * Gets the offset of the string at the given index within the string data.
+         *
+         * @param buffer the buffer the layout was read from.
+         * @param index  the index of the string.
+         * @return the offset the string starts at.
+         */
+        int stringStart(ByteBuffer buffer, int index) {
+            if (index < 0 || index >= this.stringCount) {
+                throw invalid("string " + index + " is out of range, expected less than " + this.stringCount);
+            }
+            return buffer.getInt(this.stringOffsets + index * Integer.BYTES);
+        }
+
+        /**
+         * Gets the offset just past the string at the given index within the string data, checking that the string lies within the data.
+         *
+         * @param buffer the buffer the layout was read from.
+         * @param index  the index of the string, already checked by {@link #stringStart(ByteBuffer, int)}.
+         * @return the offset the string ends at.
+         */
+        int stringEnd(ByteBuffer buffer, int index) {
+            int start = buffer.getInt(this.stringOffsets + index * Integer.BYTES);
+            int end = buffer.getInt(this.stringOffsets + (index + 1) * Integer.BYTES);
+            if (start < 0 || end < start || end > this.stringDataLength) {
+                throw invalid("string " + index + " spans " + start + " to " + end + ", expected a range within " + this.stringDataLength + " bytes");
+            }
+            return end;
+        }
+
+        /**
+         * Reads a reference to a record or string stored at the given offset, checking that it's in range.
+         *
+         * @param buffer the buffer the layout was read from.
+         * @param offset the offset the reference is stored at.
+         * @param count  the number of records or strings that may be referred to.
+         * @return the reference, or {@link #NONE}.
+         */
+        static int reference(ByteBuffer buffer, int offset, int count) {
+            int reference = buffer.getInt(offset);
+            if (reference != NONE && (reference < 0 || reference >= count)) {
+                throw invalid("reference " + reference + " at byte " + offset + " is out of range, expected less than " + count);
+            }
+            return reference;
+        }
+
+        /**
+         * Checks the range of records stored at the given offset, a first index followed by a count, lies within the given number of records.
+         *
+         * @param buffer the buffer the layout was read from.
+         * @param offset the offset the range is stored at.
+         * @param count  the number of records in the section the range refers to.
+         */
+        static void range(ByteBuffer buffer, int offset, int count) {
+            int first = buffer.getInt(offset);
+            int length = buffer.getInt(offset + Integer.BYTES);
+            if (first < 0 || length < 0 || (long) first + length > count) {
+                throw invalid("range of " + length + " from " + first + " at byte " + offset + " is out of range, expected at most " + count + " records");
+            }
+        }
+
+        static RuntimeException invalid(String detail) {
+            return new RuntimeException("Invalid binary mappings, " + detail);
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.tridevmc.atlas.read;
+
+import com.google.common.collect.ImmutableList;
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+import com.tridevmc.atlas.mappings.SymbolTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.function.IntFunction;
+
+import static com.tridevmc.atlas.read.BinaryMappingsFormat.*;
+
+/**
+ * Reads mappings stored in the compact binary format, see {@link BinaryMappingsFormat} for the layout.
+ * <p>
+ * Files are memory-mapped and the model is built in a single pass over the buffer, descriptors stored in the file are used as-is rather than recomputed.
+ */
+public class BinaryMappingsReader implements IMappingsReader {
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final SymbolTable symbols;
+
+    public BinaryMappingsReader(Path path) {
+        this(path, new SymbolTable());
+    }
+
+    public BinaryMappingsReader(Path path, SymbolTable symbols) {
+        this.path = path;
+        this.buffer = null;
+        this.symbols = symbols;
+    }
+
+    public BinaryMappingsReader(ByteBuffer buffer) {
+        this(buffer, new SymbolTable());
+    }
+
+    /**
+     * Creates a reader over the remaining bytes of the given buffer, the buffer itself isn't modified.
+     *
+     * @param buffer  the buffer containing the binary mappings.
+     * @param symbols the symbol table to intern names in.
+     */
+    public BinaryMappingsReader(ByteBuffer buffer, SymbolTable symbols) {
+        this.path = null;
+        this.buffer = buffer.slice();
+        this.symbols = symbols;
+    }
+
+    @Override
+    public AtlasMappings read() {
+        ByteBuffer buffer;
+        try {
+            buffer = this.buffer != null ? this.buffer : MappingsFiles.map(this.path);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to map binary mappings from " + this.path, e);
+        }
+        Layout layout = new Layout(buffer);
+
+        // Decode the string pool in one sweep, each string is interned so repeated loads can share names.
+        String[] strings = new String[layout.stringCount];
+        ByteBuffer data = buffer.duplicate();
+        data.position(layout.stringData);
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < layout.stringCount; i++) {
+            int start = layout.stringStart(buffer, i);
+            int length = layout.stringEnd(buffer, i) - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            data.position(layout.stringData + start);
+            data.get(scratch, 0, length);
+            strings[i] = this.symbols.intern(new String(scratch, 0, length, StandardCharsets.UTF_8));
+        }
+
+        IntFunction<String> pool = index -> index == NONE ? null : strings[index];
+        AtlasMappings.Builder mappingsBuilder = new AtlasMappings.Builder(pool.apply(layout.name), pool.apply(layout.dateGenerated), this.symbols);
+        AtlasType.Builder[] typeBuilders = new AtlasType.Builder[layout.typeCount];
+        for (int i = 0; i < layout.typeCount; i++) {
+            AtlasType.Builder type = readType(buffer, layout, pool, i);
+            int parent = parentOf(buffer, layout, i);
+            if (parent == NONE) {
+                mappingsBuilder.addType(type);
+            } else {
+                typeBuilders[parent].addChild(type);
+            }
+            typeBuilders[i] = type;
+        }
+        return mappingsBuilder.build(false);
+    }
+
+    /**
+     * Gets the index of the parent of the type at the given index, parents are stored before their children.
+     *
+     * @return the index of the parent type, or {@link BinaryMappingsFormat#NONE} for top-level types.
+     */
+    static int parentOf(ByteBuffer buffer, Layout layout, int type) {
+        // Only types stored before this one are in range, so corrupt parents can't form cycles.
+        return Layout.reference(buffer, layout.types + type * TYPE_RECORD_SIZE + 8, type);
+    }
+
+    /**
+     * Reads the type at the given index along with all of its fields and methods, children are not attached.
+     *
+     * @param buffer  the buffer containing the mappings.
+     * @param layout  the layout of the buffer.
+     * @param strings resolves indexes into the string pool.
+     * @param index   the index of the type to read.
+     * @return a builder for the type and its members.
+     */
+    static AtlasType.Builder readType(ByteBuffer buffer, Layout layout, IntFunction<String> strings, int index) {
+        int record = layout.types + index * TYPE_RECORD_SIZE;
+        AtlasType.Builder type = new AtlasType.Builder(string(buffer, layout, strings, record), string(buffer, layout, strings, record + 4));
+
+        Layout.range(buffer, record + 12, layout.fieldCount);
+        int firstField = buffer.getInt(record + 12);
+        int fieldCount = buffer.getInt(record + 16);
+        for (int f = firstField; f < firstField + fieldCount; f++) {
+            int fieldRecord = layout.fields + f * FIELD_RECORD_SIZE;
+            type.addMember(new AtlasField.Builder(string(buffer, layout, strings, fieldRecord),
+                    string(buffer, layout, strings, fieldRecord + 4),
+                    string(buffer, layout, strings, fieldRecord + 8)));
+        }
+
+        Layout.range(buffer, record + 20, layout.methodCount);
+        int firstMethod = buffer.getInt(record + 20);
+        int methodCount = buffer.getInt(record + 24);
+        for (int m = firstMethod; m < firstMethod + methodCount; m++) {
+            type.addMember(readMethod(buffer, layout, strings, m));
+        }
+        return type;
+    }
+
+    private static AtlasMethod.Builder readMethod(ByteBuffer buffer, Layout layout, IntFunction<String> strings, int index) {
+        int record = layout.methods + index * METHOD_RECORD_SIZE;
+        Layout.range(buffer, record + 12, layout.argumentCount);
+        int firstArgument = buffer.getInt(record + 12);
+        int argumentCount = buffer.getInt(record + 16);
+        ImmutableList.Builder<String> arguments = ImmutableList.builder();
+        for (int a = firstArgument; a < firstArgument + argumentCount; a++) {
+            arguments.add(string(buffer, layout, strings, layout.arguments + a * ARGUMENT_RECORD_SIZE));
+        }
+        return new AtlasMethod.Builder(string(buffer, layout, strings, record),
+                string(buffer, layout, strings, record + 4),
+                string(buffer, layout, strings, record + 8),
+                arguments.build())
+                .setDescriptors(string(buffer, layout, strings, record + 20), string(buffer, layout, strings, record + 24));
+    }
+
+    private static String string(ByteBuffer buffer, Layout layout, IntFunction<String> strings, int offset) {
+        return strings.apply(Layout.reference(buffer, offset, layout.stringCount));
+    }
+
+}
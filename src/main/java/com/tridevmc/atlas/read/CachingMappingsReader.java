@@ -0,0 +1,66 @@
+package com.tridevmc.atlas.read;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import org.pmw.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Wraps another mappings reader so its result is looked up in a {@link MappingsCache} by the reader's fingerprint, only reading the source when the cache misses.
+ * Readers without a fingerprint are always read directly.
+ */
+public class CachingMappingsReader implements IMappingsReader {
+
+    private final IMappingsReader reader;
+    private final MappingsCache cache;
+
+    public CachingMappingsReader(IMappingsReader reader, MappingsCache cache) {
+        this.reader = reader;
+        this.cache = cache;
+    }
+
+    @Override
+    public AtlasMappings read() {
+        HashCode fingerprint = this.reader.fingerprint();
+        if (fingerprint == null) {
+            Logger.debug("{} has no fingerprint, reading without the cache", this.reader);
+            return this.reader.read();
+        }
+        return this.cache.get(fingerprint, this.reader::read);
+    }
+
+    @Override
+    public HashCode fingerprint() {
+        return this.reader.fingerprint();
+    }
+
+    /**
+     * Adds the source of a text reader to a fingerprint, either the lines held in memory or the content of a file.
+     *
+     * @param hasher the hasher building the fingerprint.
+     * @param lines  the lines being read, or null if reading from a file.
+     * @param path   the file being read, or null if reading from lines.
+     * @return the hasher given.
+     */
+    static Hasher putSource(Hasher hasher, List<String> lines, Path path) {
+        if (lines != null) {
+            hasher.putInt(lines.size());
+            for (String line : lines) {
+                hasher.putString(line, StandardCharsets.UTF_8).putByte((byte) '\n');
+            }
+        } else {
+            try {
+                hasher.putBytes(MappingsFiles.map(path));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to hash mappings from " + path, e);
+            }
+        }
+        return hasher;
+    }
+
+}
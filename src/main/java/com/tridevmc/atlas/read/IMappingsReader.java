@@ -1,5 +1,6 @@
 package com.tridevmc.atlas.read;
 
+import com.google.common.hash.HashCode;
 import com.tridevmc.atlas.mappings.AtlasMappings;
 
 /**
@@ -16,4 +17,16 @@ public interface IMappingsReader {
      */
     AtlasMappings read();
 
+    /**
+     * Gets a hash identifying the mappings this reader would produce, covering both the source content and any parameters that change the result.
+     * <p>
+     * Readers that can't identify their result without consuming their source, such as those reading from an InputStream, return null and are never cached.
+     *
+     * @return the fingerprint of the mappings, or null if the reader can't provide one.
+     * @see CachingMappingsReader
+     */
+    default HashCode fingerprint() {
+        return null;
+    }
+
 }
@@ -0,0 +1,283 @@
+package com.tridevmc.atlas.read;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasType;
+import com.tridevmc.atlas.mappings.SymbolTable;
+import com.tridevmc.atlas.write.BinaryMappingsWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntFunction;
+
+import static com.tridevmc.atlas.read.BinaryMappingsFormat.*;
+
+/**
+ * AtlasMappings backed by binary mappings that only creates types when they're looked up, memory use scales with the types touched rather than the size of the mappings.
+ * <p>
+ * Types are created along with their entire top-level class so nested types and their parents always share instances.
+ * By default created types are kept for the lifetime of the mappings, alternatively a limit can be given on the number of types retained, in which case the
+ * least recently used classes are dropped and created again if they're looked up later. With a limit names are interned in a {@link SymbolTable#weak() weak} table and
+ * {@link #getTypes()} isn't cached either, so the heap only ever holds the types in use and the mappings themselves can live in a direct or memory-mapped buffer, see {@link #copyOf(AtlasMappings, long)}.
+ * A type that was dropped and created again is a different instance, so types shouldn't be compared by identity when a limit is used.
+ * <p>
+ * The limit is enforced by a Guava cache, which splits it between up to four segments that each evict on their own. A class heavier than its segment's share,
+ * about a quarter of the limit, is dropped as soon as it's created, so the limit should be well above the number of types in the largest class.
+ * <p>
+ * Type names are translated straight from the buffer without creating any types.
+ * Requires binary mappings of version 2 or above, which contain the name indexes.
+ */
+public class IndexedAtlasMappings extends AtlasMappings {
+
+    private final ByteBuffer buffer;
+    private final Layout layout;
+    private final IntFunction<String> strings;
+
+    // Whether the number of retained types is limited, unlimited mappings also cache the list of their types.
+    private final boolean bounded;
+    private final Cache<Integer, AtlasType[]> trees;
+    private volatile ImmutableList<AtlasType> types;
+
+    /**
+     * Opens indexed mappings from the given binary mappings file, the file is memory-mapped and read as types are looked up.
+     *
+     * @param path the binary mappings file.
+     * @return the indexed mappings.
+     * @throws IOException if the file could not be mapped.
+     */
+    public static IndexedAtlasMappings open(Path path) throws IOException {
+        return open(path, new SymbolTable());
+    }
+
+    /**
+     * Opens indexed mappings from the given binary mappings file, the file is memory-mapped and read as types are looked up.
+     *
+     * @param path    the binary mappings file.
+     * @param symbols the symbol table to intern names in.
+     * @return the indexed mappings.
+     * @throws IOException if the file could not be mapped.
+     */
+    public static IndexedAtlasMappings open(Path path, SymbolTable symbols) throws IOException {
+        return new IndexedAtlasMappings(MappingsFiles.map(path), symbols);
+    }
+
+    /**
+     * Opens indexed mappings from the given binary mappings file that retain at most the given number of types, the file is memory-mapped and read as types are looked up.
+     *
+     * @param path             the binary mappings file.
+     * @param maxRetainedTypes the number of types, including nested types, to keep before the least recently used classes are dropped.
+     * @return the indexed mappings.
+     * @throws IOException if the file could not be mapped.
+     * @throws IllegalArgumentException if the limit is negative.
+     */
+    public static IndexedAtlasMappings open(Path path, long maxRetainedTypes) throws IOException {
+        checkLimit(maxRetainedTypes);
+        return new IndexedAtlasMappings(MappingsFiles.map(path), maxRetainedTypes);
+    }
+
+    /**
+     * Copies the given mappings into a direct buffer outside of the heap, leaving only the types in use on the heap.
+     * <p>
+     * Useful when many versions of mappings are held at once, the given mappings can be discarded once copied.
+     *
+     * @param mappings         the mappings to copy.
+     * @param maxRetainedTypes the number of types, including nested types, to keep before the least recently used classes are dropped.
+     * @return the indexed copy of the mappings.
+     * @throws IllegalArgumentException if the limit is negative.
+     */
+    public static IndexedAtlasMappings copyOf(AtlasMappings mappings, long maxRetainedTypes) {
+        checkLimit(maxRetainedTypes);
+        return new IndexedAtlasMappings(new BinaryMappingsWriter(mappings).toBuffer(true), maxRetainedTypes);
+    }
+
+    /**
+     * Creates indexed mappings over the remaining bytes of the given buffer that keep every type they create, names are interned in the given symbol table.
+     *
+     * @param buffer  the buffer containing the binary mappings.
+     * @param symbols the symbol table to intern names in.
+     */
+    public IndexedAtlasMappings(ByteBuffer buffer, SymbolTable symbols) {
+        this(buffer.slice(), symbols, false, 0);
+    }
+
+    /**
+     * Creates indexed mappings over the remaining bytes of the given buffer that retain at most the given number of types, names are interned in a weak symbol table.
+     *
+     * @param buffer           the buffer containing the binary mappings.
+     * @param maxRetainedTypes the number of types, including nested types, to keep before the least recently used classes are dropped.
+     * @throws IllegalArgumentException if the limit is negative.
+     */
+    public IndexedAtlasMappings(ByteBuffer buffer, long maxRetainedTypes) {
+        this(buffer.slice(), SymbolTable.weak(), true, checkLimit(maxRetainedTypes));
+    }
+
+    private IndexedAtlasMappings(ByteBuffer buffer, SymbolTable symbols, boolean bounded, long maxRetainedTypes) {
+        this(buffer, new Layout(buffer), symbols, bounded, maxRetainedTypes);
+    }
+
+    private IndexedAtlasMappings(ByteBuffer buffer, Layout layout, SymbolTable symbols, boolean bounded, long maxRetainedTypes) {
+        super(symbols.intern(layout.string(buffer, layout.name)), symbols.intern(layout.string(buffer, layout.dateGenerated)), symbols);
+        if (layout.obfuscatedIndex == NONE) {
+            throw new RuntimeException("Binary mappings of version " + layout.version + " have no index, write them again with the current version");
+        }
+        this.buffer = buffer;
+        this.layout = layout;
+        this.strings = index -> symbols.intern(layout.string(buffer, index));
+        this.bounded = bounded;
+        if (this.bounded) {
+            this.trees = CacheBuilder.newBuilder()
+                    .maximumWeight(maxRetainedTypes)
+                    .weigher((Integer root, AtlasType[] tree) -> tree.length)
+                    .build();
+        } else {
+            this.trees = CacheBuilder.newBuilder().build();
+        }
+    }
+
+    private static long checkLimit(long maxRetainedTypes) {
+        if (maxRetainedTypes < 0) {
+            throw new IllegalArgumentException("The number of retained types can't be negative, got " + maxRetainedTypes);
+        }
+        return maxRetainedTypes;
+    }
+
+    @Override
+    public AtlasType findType(String name, boolean fromMappedName) {
+        int index = this.indexOf(name, fromMappedName);
+        return index == NONE ? null : this.typeAt(index);
+    }
+
+    @Override
+    public String getTypeNameMapped(String name) {
+        return this.translate(name, false);
+    }
+
+    @Override
+    public String getTypeNameObfuscated(String name) {
+        return this.translate(name, true);
+    }
+
+    /**
+     * Gets every top-level type in the mappings, this creates every type that hasn't been looked up yet.
+     * <p>
+     * When the number of retained types is limited the list is created again on every call, holding on to it keeps every type it contains.
+     *
+     * @return an immutable list of all of the types stored in the mappings.
+     */
+    @Override
+    public ImmutableList<AtlasType> getTypes() {
+        ImmutableList<AtlasType> types = this.types;
+        if (types == null) {
+            ImmutableList.Builder<AtlasType> builder = ImmutableList.builder();
+            for (int i = 0; i < this.layout.typeCount; i++) {
+                if (BinaryMappingsReader.parentOf(this.buffer, this.layout, i) == NONE) {
+                    builder.add(this.typeAt(i));
+                }
+            }
+            types = builder.build();
+            if (!this.bounded) {
+                this.types = types;
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Gets the number of types that are currently created, including nested types.
+     *
+     * @return the number of types created.
+     */
+    public int getMaterializedTypeCount() {
+        return this.trees.asMap().values().stream().mapToInt(tree -> tree.length).sum();
+    }
+
+    /**
+     * Translates a type name to the other side of the mappings by reading the buffer directly, no types are created.
+     *
+     * @return the translated name, or the original if no type has the name.
+     */
+    private String translate(String name, boolean fromMappedName) {
+        int index = this.indexOf(name, fromMappedName);
+        if (index == NONE) {
+            return name;
+        }
+        int nameRecord = this.layout.types + index * TYPE_RECORD_SIZE + (fromMappedName ? 0 : 4);
+        return this.layout.string(this.buffer, this.buffer.getInt(nameRecord));
+    }
+
+    /**
+     * Probes the name index for a type with the given name.
+     *
+     * @return the index of the type, or {@link BinaryMappingsFormat#NONE} if no type has the name.
+     */
+    private int indexOf(String name, boolean fromMappedName) {
+        int table = fromMappedName ? this.layout.mappedIndex : this.layout.obfuscatedIndex;
+        int mask = this.buffer.getInt(table) - 1;
+        int hash = name.hashCode();
+        // The writer always leaves empty slots, but a corrupt index may not have any so the probe stops after visiting every slot.
+        for (int probe = 0, slot = indexSlot(hash, mask); probe <= mask; probe++, slot = (slot + 1) & mask) {
+            int position = table + Integer.BYTES + slot * INDEX_SLOT_SIZE;
+            int entry = Layout.reference(this.buffer, position + 4, this.layout.typeCount + 1);
+            if (entry == 0) {
+                return NONE;
+            }
+            if (this.buffer.getInt(position) == hash) {
+                int nameRecord = this.layout.types + (entry - 1) * TYPE_RECORD_SIZE + (fromMappedName ? 4 : 0);
+                if (this.layout.stringEquals(this.buffer, this.buffer.getInt(nameRecord), name)) {
+                    return entry - 1;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    private AtlasType typeAt(int index) {
+        int root = index;
+        while (BinaryMappingsReader.parentOf(this.buffer, this.layout, root) != NONE) {
+            root = BinaryMappingsReader.parentOf(this.buffer, this.layout, root);
+        }
+        int finalRoot = root;
+        try {
+            // The cache loads each tree once even when several threads ask for it, the tree is fully built before it's published.
+            return this.trees.get(root, () -> this.materializeTree(finalRoot))[index - root];
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new RuntimeException("Failed to read type " + index + " from binary mappings", e.getCause());
+        }
+    }
+
+    /**
+     * Creates the top-level type at the given index along with all of its nested types, which directly follow it in the file.
+     *
+     * @return the created types ordered by their index, starting with the top-level type.
+     */
+    private AtlasType[] materializeTree(int root) {
+        int end = root + 1;
+        while (end < this.layout.typeCount && BinaryMappingsReader.parentOf(this.buffer, this.layout, end) != NONE) {
+            end++;
+        }
+        AtlasType.Builder[] builders = new AtlasType.Builder[end - root];
+        for (int i = root; i < end; i++) {
+            builders[i - root] = BinaryMappingsReader.readType(this.buffer, this.layout, this.strings, i);
+            if (i != root) {
+                int parent = BinaryMappingsReader.parentOf(this.buffer, this.layout, i);
+                if (parent < root) {
+                    throw Layout.invalid("type " + i + " has parent " + parent + " outside of its tree starting at " + root);
+                }
+                builders[parent - root].addChild(builders[i - root]);
+            }
+        }
+        this.materialize(builders[0]);
+        AtlasType[] tree = new AtlasType[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            // Builders cache the type they built, so this returns the instances created above.
+            tree[i] = builders[i].build(this);
+        }
+        return tree;
+    }
+
+}
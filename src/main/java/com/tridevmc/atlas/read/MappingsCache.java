@@ -0,0 +1,187 @@
+package com.tridevmc.atlas.read;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.write.BinaryMappingsWriter;
+import org.pmw.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Caches built mappings by fingerprint, both in memory and optionally as binary snapshots on disk so later runs can skip parsing entirely.
+ * <p>
+ * The most recently used mappings are held in memory up to a fixed count. Snapshots are written to the directory given in the binary format,
+ * once the directory grows past its size limit the least recently used snapshots are deleted.
+ *
+ * @see CachingMappingsReader
+ */
+public class MappingsCache {
+
+    private static final String SNAPSHOT_EXTENSION = ".atlas";
+
+    private final Cache<HashCode, AtlasMappings> memory;
+    private final Path directory;
+    private final long maxDirectorySize;
+
+    /**
+     * Creates a cache that only holds mappings in memory.
+     *
+     * @param maxMappings the number of mappings to keep in memory.
+     */
+    public MappingsCache(int maxMappings) {
+        this(maxMappings, null, 0);
+    }
+
+    /**
+     * Creates a cache that holds mappings in memory and keeps snapshots of them in the given directory.
+     *
+     * @param maxMappings      the number of mappings to keep in memory.
+     * @param directory        the directory to store snapshots in, or null to only cache in memory.
+     * @param maxDirectorySize the total size in bytes the snapshots may take before the least recently used are deleted.
+     */
+    public MappingsCache(int maxMappings, Path directory, long maxDirectorySize) {
+        this.memory = CacheBuilder.newBuilder().maximumSize(maxMappings).build();
+        this.directory = directory;
+        this.maxDirectorySize = maxDirectorySize;
+    }
+
+    /**
+     * Gets the mappings with the given fingerprint, loading a snapshot or reading them with the given supplier if they aren't cached.
+     *
+     * @param fingerprint the fingerprint of the mappings.
+     * @param reader      reads the mappings if there is no cached copy.
+     * @return the mappings with the given fingerprint.
+     */
+    public AtlasMappings get(HashCode fingerprint, Supplier<AtlasMappings> reader) {
+        try {
+            return this.memory.get(fingerprint, () -> this.load(fingerprint, reader));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new RuntimeException("Failed to read mappings " + fingerprint, e.getCause());
+        }
+    }
+
+    /**
+     * Removes every mapping held in memory, snapshots on disk are kept.
+     */
+    public void invalidateMemory() {
+        this.memory.invalidateAll();
+    }
+
+    /**
+     * Loads the mappings from their snapshot or reads them, the snapshot directory is best-effort as it may be shared with other processes.
+     * Failing to read, write or evict snapshots is logged and the mappings are still returned.
+     */
+    private AtlasMappings load(HashCode fingerprint, Supplier<AtlasMappings> reader) {
+        if (this.directory == null) {
+            return reader.get();
+        }
+
+        Path snapshot = this.directory.resolve(fingerprint + SNAPSHOT_EXTENSION);
+        if (Files.isRegularFile(snapshot)) {
+            try {
+                AtlasMappings mappings = new BinaryMappingsReader(snapshot).read();
+                // The modified time tracks use, so eviction removes the least recently used snapshots.
+                touch(snapshot);
+                Logger.debug("Loaded mappings {} from snapshot {}", mappings.getName(), snapshot);
+                return mappings;
+            } catch (RuntimeException e) {
+                Logger.warn(e, "Discarding unreadable mappings snapshot {}", snapshot);
+                delete(snapshot);
+            }
+        }
+
+        AtlasMappings mappings = reader.get();
+        try {
+            this.write(mappings, fingerprint, snapshot);
+        } catch (IOException e) {
+            Logger.warn(e, "Failed to write mappings snapshot {}", snapshot);
+            return mappings;
+        }
+        this.evict();
+        return mappings;
+    }
+
+    private void write(AtlasMappings mappings, HashCode fingerprint, Path snapshot) throws IOException {
+        Files.createDirectories(this.directory);
+        // Write to a temporary file first so other processes never see a partial snapshot.
+        Path temporary = Files.createTempFile(this.directory, fingerprint.toString(), ".tmp");
+        try {
+            new BinaryMappingsWriter(mappings).write(temporary);
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            delete(temporary);
+        }
+    }
+
+    /**
+     * Deletes the least recently used snapshots until the directory is within its size limit.
+     * <p>
+     * Other processes may delete snapshots at the same time, and mapped snapshots can't be deleted on some platforms, so such snapshots are skipped.
+     */
+    private void evict() {
+        List<Path> snapshots;
+        try (Stream<Path> files = Files.list(this.directory)) {
+            snapshots = files.filter(path -> path.getFileName().toString().endsWith(SNAPSHOT_EXTENSION))
+                    .sorted(Comparator.comparing(MappingsCache::lastModified).reversed())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            Logger.warn(e, "Failed to list mappings snapshots in {}", this.directory);
+            return;
+        }
+
+        long size = 0;
+        for (Path snapshot : snapshots) {
+            long snapshotSize;
+            try {
+                snapshotSize = Files.size(snapshot);
+            } catch (IOException e) {
+                // Deleted by another process since the directory was listed.
+                continue;
+            }
+            if (size + snapshotSize <= this.maxDirectorySize) {
+                size += snapshotSize;
+            } else {
+                Logger.debug("Evicting mappings snapshot {}", snapshot);
+                delete(snapshot);
+            }
+        }
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            Logger.warn(e, "Failed to update the modified time of {}", path);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            Logger.warn(e, "Failed to delete {}", path);
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.tridevmc.atlas.read;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File access shared by the text and binary mappings readers.
+ */
+final class MappingsFiles {
+
+    private MappingsFiles() {
+    }
+
+    /**
+     * Memory-maps the given file as read only.
+     *
+     * @param path the file to map.
+     * @return a buffer containing the entire contents of the file.
+     * @throws IOException if the file could not be mapped.
+     */
+    static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+}
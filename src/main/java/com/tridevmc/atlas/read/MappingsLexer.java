@@ -0,0 +1,365 @@
+package com.tridevmc.atlas.read;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits text mappings into lines and tokens directly from their encoded bytes, so readers never decode a whole line to parse it.
+ * <p>
+ * Tokens are handed out as byte positions within the current line and are only turned into strings when a reader stores them.
+ * Names are normalised from dots to slashes as they're decoded, and each distinct name is only decoded once per lexer.
+ * <p>
+ * A lexer either walks a buffer that already holds the whole input, such as a memory-mapped file, or streams from a channel through a
+ * small buffer that grows to fit the longest line. Positions are only valid until the next call to {@link #nextLine()}.
+ * Lexers aren't thread safe, parallel readers should use one per chunk.
+ */
+public final class MappingsLexer {
+
+    private static final int CHANNEL_BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private boolean endOfInput;
+    private int position;
+    private int lineStart, lineEnd;
+    private int lineNumber = -1;
+
+    private int[] nameHashes = new int[1024];
+    private String[] names = new String[1024];
+    private int nameCount;
+
+    /**
+     * Creates a lexer over the remaining bytes of the given buffer, the buffer itself isn't modified.
+     *
+     * @param buffer the buffer holding the mappings.
+     */
+    public MappingsLexer(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer.duplicate();
+        this.position = this.buffer.position();
+        this.endOfInput = true;
+    }
+
+    /**
+     * Creates a lexer that streams the mappings from the given channel, the channel isn't closed by the lexer.
+     *
+     * @param channel the channel to read the mappings from.
+     */
+    public MappingsLexer(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(CHANNEL_BUFFER_SIZE);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * Moves to the next line of the input.
+     *
+     * @return true if there was another line, false if the end of the input was reached.
+     */
+    public boolean nextLine() {
+        int end = this.findLineEnd();
+        if (end < 0) {
+            return false;
+        }
+        this.lineNumber++;
+        this.lineStart = this.position;
+        this.position = end < this.buffer.limit() ? end + 1 : end;
+        if (end > this.lineStart && this.buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        this.lineEnd = end;
+        return true;
+    }
+
+    private int findLineEnd() {
+        int from = this.position;
+        while (true) {
+            int limit = this.buffer.limit();
+            for (int i = from; i < limit; i++) {
+                if (this.buffer.get(i) == '\n') {
+                    return i;
+                }
+            }
+            if (this.endOfInput) {
+                return this.position < limit ? limit : -1;
+            }
+            from = limit - this.position;
+            this.fill();
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer and reads more from the channel, growing the buffer if a single line fills it.
+     */
+    private void fill() {
+        this.buffer.position(this.position);
+        if (this.position == 0 && this.buffer.limit() == this.buffer.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocate(this.buffer.capacity() * 2);
+            grown.put(this.buffer);
+            this.buffer = grown;
+        } else {
+            this.buffer.compact();
+        }
+        try {
+            int read;
+            do {
+                read = this.channel.read(this.buffer);
+            } while (read == 0);
+            this.endOfInput = read < 0;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read mappings", e);
+        }
+        this.buffer.flip();
+        this.position = 0;
+    }
+
+    /**
+     * Gets the number of the current line, starting from zero.
+     *
+     * @return the number of the current line.
+     */
+    public int getLineNumber() {
+        return this.lineNumber;
+    }
+
+    /**
+     * Gets the position of the first byte of the current line.
+     *
+     * @return the start of the current line.
+     */
+    public int getLineStart() {
+        return this.lineStart;
+    }
+
+    /**
+     * Gets the position just past the last byte of the current line, excluding the line terminator.
+     *
+     * @return the end of the current line.
+     */
+    public int getLineEnd() {
+        return this.lineEnd;
+    }
+
+    /**
+     * Gets the byte at the given position, or 0 if it's past the end of the current line.
+     *
+     * @param index the position of the byte.
+     * @return the byte at the position.
+     */
+    public byte byteAt(int index) {
+        return index < this.lineEnd ? this.buffer.get(index) : 0;
+    }
+
+    /**
+     * Determines if the current line is empty or only holds whitespace.
+     *
+     * @return true if the line is blank, false otherwise.
+     */
+    public boolean isBlank() {
+        return this.skipWhitespace(this.lineStart) == this.lineEnd;
+    }
+
+    /**
+     * Finds the first occurrence of a character in the current line at or after the given position.
+     *
+     * @param c    the character to find.
+     * @param from the position to start searching from.
+     * @return the position of the character, or -1 if the rest of the line doesn't contain it.
+     */
+    public int indexOf(char c, int from) {
+        for (int i = Math.max(from, this.lineStart); i < this.lineEnd; i++) {
+            if (this.buffer.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first occurrence of a string in the current line at or after the given position.
+     *
+     * @param s    the string to find.
+     * @param from the position to start searching from.
+     * @return the position of the string, or -1 if the rest of the line doesn't contain it.
+     */
+    public int indexOf(String s, int from) {
+        for (int i = Math.max(from, this.lineStart); i <= this.lineEnd - s.length(); i++) {
+            if (this.regionMatches(i, s)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the last occurrence of a character in the current line at or after the given position.
+     *
+     * @param c    the character to find.
+     * @param from the first position that may hold the character.
+     * @return the position of the character, or -1 if the rest of the line doesn't contain it.
+     */
+    public int lastIndexOf(char c, int from) {
+        return this.lastIndexOf(c, from, this.lineEnd);
+    }
+
+    /**
+     * Finds the last occurrence of a character in the current line between the given positions.
+     *
+     * @param c    the character to find.
+     * @param from the first position that may hold the character.
+     * @param to   the position just past the last that may hold the character.
+     * @return the position of the character, or -1 if the range doesn't contain it.
+     */
+    public int lastIndexOf(char c, int from, int to) {
+        for (int i = Math.min(to, this.lineEnd) - 1; i >= Math.max(from, this.lineStart); i--) {
+            if (this.buffer.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Determines if the current line holds the given string at the given position.
+     *
+     * @param index the position to compare at.
+     * @param s     the string to compare against.
+     * @return true if the bytes at the position match the string, false otherwise.
+     */
+    public boolean regionMatches(int index, String s) {
+        if (index + s.length() > this.lineEnd) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (this.buffer.get(index + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skips past any spaces or tabs in the current line.
+     *
+     * @param from the position to start from.
+     * @return the position of the first byte that isn't whitespace, or the end of the line.
+     */
+    public int skipWhitespace(int from) {
+        while (from < this.lineEnd && isWhitespace(this.buffer.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Moves an end position back past any spaces or tabs.
+     *
+     * @param start the position the token starts at.
+     * @param end   the position just past the token.
+     * @return the position just past the last byte that isn't whitespace, no earlier than start.
+     */
+    public int trimEnd(int start, int end) {
+        while (end > start && isWhitespace(this.buffer.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Gets the name between the given positions with dots replaced by slashes, equal names share a single string.
+     *
+     * @param start the position the name starts at.
+     * @param end   the position just past the name.
+     * @return the normalised name.
+     */
+    public String name(int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            byte b = this.buffer.get(i);
+            if (b < 0) {
+                // Not ASCII, decode it properly and skip the name table.
+                return this.decode(start, end).replace('.', '/');
+            }
+            hash = 31 * hash + normalise(b);
+        }
+
+        int mask = this.names.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            String existing = this.names[slot];
+            if (existing == null) {
+                char[] chars = new char[end - start];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = (char) normalise(this.buffer.get(start + i));
+                }
+                String name = new String(chars);
+                this.store(slot, hash, name);
+                return name;
+            }
+            if (this.nameHashes[slot] == hash && this.nameMatches(existing, start, end)) {
+                return existing;
+            }
+        }
+    }
+
+    /**
+     * Gets the whole of the current line, for use in error messages.
+     *
+     * @return the decoded line.
+     */
+    public String line() {
+        return this.decode(this.lineStart, this.lineEnd);
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = this.buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean nameMatches(String name, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != normalise(this.buffer.get(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void store(int slot, int hash, String name) {
+        this.names[slot] = name;
+        this.nameHashes[slot] = hash;
+        if (++this.nameCount * 2 > this.names.length) {
+            String[] oldNames = this.names;
+            int[] oldHashes = this.nameHashes;
+            this.names = new String[oldNames.length * 2];
+            this.nameHashes = new int[oldNames.length * 2];
+            int mask = this.names.length - 1;
+            for (int i = 0; i < oldNames.length; i++) {
+                if (oldNames[i] != null) {
+                    int newSlot = oldHashes[i] & mask;
+                    while (this.names[newSlot] != null) {
+                        newSlot = (newSlot + 1) & mask;
+                    }
+                    this.names[newSlot] = oldNames[i];
+                    this.nameHashes[newSlot] = oldHashes[i];
+                }
+            }
+        }
+    }
+
+    private static int normalise(byte b) {
+        return b == '.' ? '/' : b;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+}
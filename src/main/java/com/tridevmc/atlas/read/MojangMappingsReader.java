@@ -1,27 +1,39 @@
 package com.tridevmc.atlas.read;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
 import com.tridevmc.atlas.mappings.AtlasField;
 import com.tridevmc.atlas.mappings.AtlasMappings;
 import com.tridevmc.atlas.mappings.AtlasMethod;
 import com.tridevmc.atlas.mappings.AtlasType;
-import com.tridevmc.atlas.util.StringFixer;
 import org.pmw.tinylog.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
-import static com.tridevmc.atlas.util.StringFixer.dotsToSlash;
-
 /**
  * Reads Mojang mapping files and converts them into an AtlasMappings object to use with a Remapper.
+ * <p>
+ * Mappings can be read from lines already in memory, a memory-mapped file, or streamed from an InputStream.
+ * Lines are tokenized from their bytes by a {@link MappingsLexer} rather than with regular expressions.
+ * <p>
+ * In parallel mode the source is split into chunks at class headers which are parsed on a fork join pool.
+ * Nested types are linked to their parents once every chunk has been parsed.
  *
  * @author Benjamin K
  */
@@ -29,75 +41,283 @@ public class MojangMappingsReader implements IMappingsReader {
 
     private final String name;
     private final List<String> lines;
+    private final Path path;
+    private final InputStream input;
+    private ForkJoinPool pool;
 
     public MojangMappingsReader(String name, String lines) {
         this(name, lines.split("\n"));
     }
 
     public MojangMappingsReader(String name, String[] lines) {
-        this.name = name;
-        this.lines = Arrays.asList(lines.clone());
+        this(name, Arrays.asList(lines.clone()));
     }
 
     public MojangMappingsReader(String name, List<String> lines) {
+        this(name, ImmutableList.copyOf(lines), null, null);
+    }
+
+    /**
+     * Creates a reader that memory-maps the given file when read.
+     *
+     * @param name the name of the mappings.
+     * @param path the file to read the mappings from.
+     */
+    public MojangMappingsReader(String name, Path path) {
+        this(name, null, path, null);
+    }
+
+    /**
+     * Creates a reader that streams the mappings from the given InputStream when read, the stream is closed once read.
+     *
+     * @param name  the name of the mappings.
+     * @param input the stream to read the mappings from.
+     */
+    public MojangMappingsReader(String name, InputStream input) {
+        this(name, null, null, input);
+    }
+
+    private MojangMappingsReader(String name, List<String> lines, Path path, InputStream input) {
         this.name = name;
-        this.lines = Lists.newArrayList(lines);
+        this.lines = lines;
+        this.path = path;
+        this.input = input;
+    }
+
+    /**
+     * Sets whether the mappings are parsed in parallel on the common fork join pool.
+     *
+     * @param parallel true to parse in parallel, false to parse sequentially.
+     * @return this reader.
+     */
+    public MojangMappingsReader setParallel(boolean parallel) {
+        return this.setParallel(parallel ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Sets the pool the mappings are parsed on in parallel.
+     *
+     * @param pool the pool to parse on, or null to parse sequentially.
+     * @return this reader.
+     */
+    public MojangMappingsReader setParallel(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
     }
 
     @Override
     public AtlasMappings read() {
+        if (this.pool != null) {
+            return this.link(this.parseParallel(), true);
+        }
+        if (this.input != null) {
+            try (ReadableByteChannel channel = Channels.newChannel(this.input)) {
+                return this.link(parseTypes(new MappingsLexer(channel)), false);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read Mojang mappings " + this.name, e);
+            }
+        }
+        return this.link(parseTypes(new MappingsLexer(this.buffer())), false);
+    }
+
+    @Override
+    public HashCode fingerprint() {
+        if (this.input != null) {
+            return null;
+        }
+        Hasher hasher = Hashing.sha256().newHasher().putString("mojang", StandardCharsets.UTF_8).putString(this.name, StandardCharsets.UTF_8);
+        return CachingMappingsReader.putSource(hasher, this.lines, this.path).hash();
+    }
+
+    /**
+     * Gets the whole of the mappings as a buffer, files are memory-mapped and lines are encoded.
+     */
+    private ByteBuffer buffer() {
+        try {
+            if (this.path != null) {
+                return MappingsFiles.map(this.path);
+            } else if (this.input != null) {
+                try (InputStream input = this.input) {
+                    return ByteBuffer.wrap(ByteStreams.toByteArray(input));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read Mojang mappings " + this.name, e);
+        }
+        return ByteBuffer.wrap(String.join("\n", this.lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<AtlasType.Builder> parseParallel() {
+        ByteBuffer buffer = this.buffer();
+        List<ByteBuffer> chunks = chunk(buffer, this.pool.getParallelism() * 4);
+        List<List<AtlasType.Builder>> parsed = this.pool.submit(() -> chunks.parallelStream().map(chunk -> {
+            try {
+                return parseTypes(new MappingsLexer(chunk));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Failed to parse mappings chunk starting at byte " + chunk.position(), e);
+            }
+        }).collect(Collectors.toList())).join();
+        List<AtlasType.Builder> types = Lists.newArrayList();
+        parsed.forEach(types::addAll);
+        return types;
+    }
+
+    private AtlasMappings link(List<AtlasType.Builder> types, boolean parallel) {
         AtlasMappings.Builder mappingsBuilder = new AtlasMappings.Builder(this.name, OffsetDateTime.now().format(DateTimeFormatter.ISO_DATE));
+        NestedTypeLinker.link(types).forEach(mappingsBuilder::addType);
+        return mappingsBuilder.build(parallel);
+    }
+
+    /**
+     * Parses every type and its members from the given lexer, nested types are not yet attached to their parents.
+     *
+     * @param lexer the lexer to read lines from.
+     * @return every type read, in the order they were read.
+     */
+    static List<AtlasType.Builder> parseTypes(MappingsLexer lexer) {
+        List<AtlasType.Builder> types = Lists.newArrayList();
         AtlasType.Builder currentType = null;
-        Map<String, AtlasType.Builder> typeBuilders = Maps.newHashMap();
-        for (int lineNo = 0; lineNo < lines.size(); lineNo++) {
-            String line = this.lines.get(lineNo);
-            if (line.startsWith("#")) {
-                Logger.info("Skipping line {} - contains comment", lineNo);
+        while (lexer.nextLine()) {
+            // Comments may be indented, such as the metadata R8 writes under class headers.
+            int contentStart = lexer.skipWhitespace(lexer.getLineStart());
+            if (contentStart == lexer.getLineEnd() || lexer.byteAt(contentStart) == '#') {
                 continue;
             }
 
-            Pattern namePattern = Pattern.compile("([A-z0-9.\\-_$<>]+)");
-            Matcher matcher = namePattern.matcher(line);
-            List<String> matches = Lists.newArrayList();
-            while (matcher.find()) {
-                matches.add(matcher.group());
-            }
-            if (!line.startsWith(" ")) {
-                String mappedName = dotsToSlash(matches.get(0));
-                String obfuscatedName = dotsToSlash(matches.get(2));
+            // Only class headers start at the beginning of a line.
+            if (contentStart == lexer.getLineStart()) {
                 if (currentType != null)
-                    Logger.info("Finished building type {}", currentType);
-                if (!obfuscatedName.contains("$")) {
-                    currentType = new AtlasType.Builder(obfuscatedName, mappedName);
-                    typeBuilders.put(obfuscatedName, currentType);
-                    mappingsBuilder.addType(currentType);
-                } else {
-                    String[] splitName = obfuscatedName.split("\\$");
-                    String rootName = splitName[0];
-                    currentType = new AtlasType.Builder(obfuscatedName, mappedName);
-                    typeBuilders.get(rootName).addChild(splitName, currentType);
-                }
+                    Logger.trace("Finished building type {}", currentType);
+                currentType = readType(lexer);
+                types.add(currentType);
             } else {
-                if (line.contains("(")) {
+                if (currentType == null) {
+                    throw new RuntimeException("Found member on line " + lexer.getLineNumber() + " before any type");
+                }
+                if (lexer.indexOf('(', lexer.getLineStart()) >= 0) {
                     // Methods represent args with brackets, this must be a method.
-                    int offset = line.contains(":") ? 2 : 0;
-                    String returnType = dotsToSlash(matches.get(offset));
-                    String mappedName = dotsToSlash(matches.get(offset + 1));
-                    String obfuscatedName = dotsToSlash(matches.get(matches.size() - 1));
-                    List<String> arguments = matches.subList(offset + 2, matches.size() - 2).stream().map(StringFixer::dotsToSlash).collect(Collectors.toList());
-                    AtlasMethod.Builder methodBuilder = new AtlasMethod.Builder(obfuscatedName, mappedName, returnType, arguments);
-                    currentType.addMember(methodBuilder);
+                    currentType.addMember(readMethod(lexer));
                 } else {
-                    // Fields
-                    String type = dotsToSlash(matches.get(0));
-                    String mappedName = dotsToSlash(matches.get(1));
-                    String obfuscatedName = dotsToSlash(matches.get(matches.size() - 1));
-                    AtlasField.Builder fieldBuilder = new AtlasField.Builder(obfuscatedName, mappedName, type);
-                    currentType.addMember(fieldBuilder);
+                    currentType.addMember(readField(lexer));
                 }
             }
         }
+        return types;
+    }
+
+    /**
+     * Splits a buffer into roughly even chunks that each start at a class header.
+     */
+    private static List<ByteBuffer> chunk(ByteBuffer buffer, int targetChunks) {
+        List<ByteBuffer> chunks = Lists.newArrayList();
+        int limit = buffer.limit();
+        int start = buffer.position();
+        for (int i = 1; i <= targetChunks && start < limit; i++) {
+            int end = i == targetChunks ? limit : nextTypeHeader(buffer, Math.max(start + 1, (int) ((long) limit * i / targetChunks)));
+            ByteBuffer chunk = buffer.duplicate();
+            chunk.limit(end);
+            chunk.position(start);
+            chunks.add(chunk);
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Finds the start of the first class header at or after the line containing the given position.
+     */
+    private static int nextTypeHeader(ByteBuffer buffer, int position) {
+        int limit = buffer.limit();
+        // Move to the start of the next line unless already at the start of one.
+        if (position > 0 && buffer.get(position - 1) != '\n') {
+            while (position < limit && buffer.get(position++) != '\n') ;
+        }
+        while (position < limit) {
+            byte first = buffer.get(position);
+            if (first != ' ' && first != '\t' && first != '#' && first != '\n' && first != '\r') {
+                return position;
+            }
+            while (position < limit && buffer.get(position++) != '\n') ;
+        }
+        return limit;
+    }
+
+    /**
+     * Reads a type line in the form {@code mapped.Name -> obf:}.
+     */
+    static AtlasType.Builder readType(MappingsLexer lexer) {
+        int start = lexer.getLineStart();
+        int arrow = arrowIndex(lexer, start);
+        int end = lexer.lastIndexOf(':', arrow);
+        if (end < 0) {
+            end = lexer.getLineEnd();
+        }
+        return new AtlasType.Builder(name(lexer, arrow + 4, end), name(lexer, start, arrow));
+    }
+
+    /**
+     * Reads a field line in the form {@code     type name -> obf}.
+     */
+    private static AtlasField.Builder readField(MappingsLexer lexer) {
+        int start = lexer.skipWhitespace(lexer.getLineStart());
+        int arrow = arrowIndex(lexer, start);
+        int typeEnd = lexer.indexOf(' ', start);
+        return new AtlasField.Builder(name(lexer, arrow + 4, lexer.getLineEnd()),
+                lexer.name(typeEnd + 1, arrow),
+                lexer.name(start, typeEnd));
+    }
+
+    /**
+     * Reads a method line in the form {@code     1:2:returnType name(arg,arg):3:4 -> obf}, where both line number ranges are optional.
+     */
+    private static AtlasMethod.Builder readMethod(MappingsLexer lexer) {
+        int start = lexer.skipWhitespace(lexer.getLineStart());
+        // Skip the line numbers the method spans, if present.
+        byte first = lexer.byteAt(start);
+        if (first >= '0' && first <= '9') {
+            int firstColon = lexer.indexOf(':', start);
+            int secondColon = firstColon < 0 ? -1 : lexer.indexOf(':', firstColon + 1);
+            if (secondColon < 0) {
+                throw new RuntimeException("Malformed line numbers on line " + lexer.getLineNumber() + ": " + lexer.line());
+            }
+            start = secondColon + 1;
+        }
+        int typeEnd = lexer.indexOf(' ', start);
+        int argumentsStart = typeEnd < 0 ? -1 : lexer.indexOf('(', typeEnd);
+        int argumentsEnd = argumentsStart < 0 ? -1 : lexer.indexOf(')', argumentsStart);
+        if (typeEnd < 0 || argumentsStart < 0 || argumentsEnd < 0) {
+            throw new RuntimeException("Malformed method on line " + lexer.getLineNumber() + ": " + lexer.line());
+        }
+        int arrow = arrowIndex(lexer, argumentsEnd);
+
+        List<String> arguments = Lists.newArrayList();
+        for (int argumentStart = argumentsStart + 1; argumentStart < argumentsEnd; ) {
+            int argumentEnd = lexer.indexOf(',', argumentStart);
+            if (argumentEnd < 0 || argumentEnd > argumentsEnd) {
+                argumentEnd = argumentsEnd;
+            }
+            arguments.add(lexer.name(argumentStart, argumentEnd));
+            argumentStart = argumentEnd + 1;
+        }
+        return new AtlasMethod.Builder(name(lexer, arrow + 4, lexer.getLineEnd()),
+                lexer.name(typeEnd + 1, argumentsStart),
+                lexer.name(start, typeEnd),
+                arguments);
+    }
+
+    private static int arrowIndex(MappingsLexer lexer, int from) {
+        int arrow = lexer.indexOf(" -> ", from);
+        if (arrow < 0) {
+            throw new RuntimeException("Missing \"->\" on line " + lexer.getLineNumber() + ": " + lexer.line());
+        }
+        return arrow;
+    }
 
-        return mappingsBuilder.build();
+    /**
+     * Gets the name between the given positions without any surrounding whitespace.
+     */
+    private static String name(MappingsLexer lexer, int start, int end) {
+        start = lexer.skipWhitespace(start);
+        return lexer.name(start, lexer.trimEnd(start, end));
     }
 }
@@ -0,0 +1,308 @@
+package com.tridevmc.atlas.read;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+import com.tridevmc.atlas.mappings.SymbolTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Reloads Mojang mappings as they're edited, only re-parsing the class blocks that changed since the last load.
+ * <p>
+ * Class blocks are grouped with the blocks of their nested types and each group is hashed, groups with the same hash as the last load keep their
+ * built types, which are shared by the new mappings rather than copied. A group is only re-parsed if its content changed, or if a type it refers to
+ * was added, removed or renamed, as method descriptors depend on the names of the types they refer to.
+ * <p>
+ * Reloaders aren't thread safe, but the mappings they produce are as safe to share as any other.
+ */
+public class MojangMappingsReloader {
+
+    private final String name;
+    private final SymbolTable symbols = new SymbolTable();
+    private Map<String, Group> groups = Maps.newLinkedHashMap();
+    private AtlasMappings mappings;
+
+    public MojangMappingsReloader(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the mappings produced by the last load.
+     *
+     * @return the current mappings, or null if nothing has been loaded yet.
+     */
+    public AtlasMappings getMappings() {
+        return this.mappings;
+    }
+
+    /**
+     * Loads the mappings from the given file, the file is memory-mapped for the duration of the load.
+     *
+     * @param path the file to load the mappings from.
+     * @return the result of the load.
+     */
+    public Reload load(Path path) {
+        try {
+            return this.load(MappingsFiles.map(path));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to map Mojang mappings from " + path, e);
+        }
+    }
+
+    /**
+     * Loads the mappings from the remaining bytes of the given buffer, the buffer itself isn't modified.
+     *
+     * @param buffer the buffer holding the mappings.
+     * @return the result of the load.
+     */
+    public Reload load(ByteBuffer buffer) {
+        Map<String, Group> groups = split(buffer);
+
+        // Re-parse every group whose content changed, noting any type names that were added, removed or paired differently.
+        Set<String> changedTypes = Sets.newHashSet();
+        Set<String> changedNames = Sets.newHashSet();
+        for (Group group : groups.values()) {
+            Group previous = this.groups.get(group.key);
+            if (previous != null && previous.hash.equals(group.hash)) {
+                group.types = previous.types;
+            } else {
+                group.parse();
+                diffNames(previous == null ? ImmutableList.of() : previous.types, group.builders, changedTypes, changedNames);
+            }
+        }
+        for (Group previous : this.groups.values()) {
+            if (!groups.containsKey(previous.key)) {
+                diffNames(previous.types, ImmutableList.of(), changedTypes, changedNames);
+            }
+        }
+
+        // Unchanged groups that refer to a changed name need new descriptors.
+        Set<String> rebuiltTypes = Sets.newHashSet();
+        if (!changedNames.isEmpty()) {
+            for (Group group : groups.values()) {
+                if (group.builders == null && group.types.stream().anyMatch(type -> refersTo(type, changedNames))) {
+                    group.parse();
+                    group.builders.forEach(type -> rebuiltTypes.add(type.getObfuscatedName()));
+                }
+            }
+        }
+
+        AtlasMappings.Builder mappingsBuilder = new AtlasMappings.Builder(this.name, OffsetDateTime.now().format(DateTimeFormatter.ISO_DATE), this.symbols);
+        for (Group group : groups.values()) {
+            if (group.builders == null) {
+                group.types.forEach(mappingsBuilder::addType);
+            } else {
+                group.topLevelTypes.forEach(mappingsBuilder::addType);
+            }
+        }
+        AtlasMappings mappings = mappingsBuilder.build(false);
+        for (Group group : groups.values()) {
+            group.finish(mappings);
+        }
+
+        this.groups = groups;
+        this.mappings = mappings;
+        return new Reload(mappings, ImmutableSet.copyOf(changedTypes), ImmutableSet.copyOf(rebuiltTypes));
+    }
+
+    /**
+     * Splits the mappings into class blocks by their headers, grouping each nested type's block with its top-level type.
+     */
+    private static Map<String, Group> split(ByteBuffer buffer) {
+        Map<String, Group> groups = Maps.newLinkedHashMap();
+        MappingsLexer lexer = new MappingsLexer(buffer);
+        Group group = null;
+        int blockStart = -1;
+        while (lexer.nextLine()) {
+            byte first = lexer.byteAt(lexer.getLineStart());
+            if (first == ' ' || first == '\t' || first == '#' || lexer.isBlank()) {
+                continue;
+            }
+            if (group != null) {
+                group.addBlock(buffer, blockStart, lexer.getLineStart());
+            }
+            String obfuscatedName = MojangMappingsReader.readType(lexer).getObfuscatedName();
+            int nested = obfuscatedName.indexOf('$', 1);
+            String key = nested < 0 ? obfuscatedName : obfuscatedName.substring(0, nested);
+            group = groups.computeIfAbsent(key, Group::new);
+            blockStart = lexer.getLineStart();
+        }
+        if (group != null) {
+            group.addBlock(buffer, blockStart, buffer.limit());
+        }
+        groups.values().forEach(Group::hash);
+        return groups;
+    }
+
+    /**
+     * Compares the names of the types a group had with the types it has now.
+     *
+     * @param previousTypes the top-level types the group had, with their children.
+     * @param currentTypes  every type the group has now, including nested types.
+     * @param changedTypes  the set to add the obfuscated names of any types in the group to.
+     * @param changedNames  the set to add any names that were added, removed or paired differently to.
+     */
+    private static void diffNames(List<AtlasType> previousTypes, List<AtlasType.Builder> currentTypes, Set<String> changedTypes, Set<String> changedNames) {
+        Map<String, String> previousNames = Maps.newHashMap();
+        previousTypes.forEach(type -> collectNames(type, previousNames));
+        Map<String, String> currentNames = Maps.newHashMap();
+        currentTypes.forEach(type -> currentNames.putIfAbsent(type.getObfuscatedName(), type.getMappedName()));
+
+        changedTypes.addAll(previousNames.keySet());
+        changedTypes.addAll(currentNames.keySet());
+        for (String obfuscatedName : Sets.union(previousNames.keySet(), currentNames.keySet())) {
+            String previousName = previousNames.get(obfuscatedName);
+            String currentName = currentNames.get(obfuscatedName);
+            if (!Objects.equals(previousName, currentName)) {
+                changedNames.add(obfuscatedName);
+                if (previousName != null)
+                    changedNames.add(previousName);
+                if (currentName != null)
+                    changedNames.add(currentName);
+            }
+        }
+    }
+
+    private static void collectNames(AtlasType type, Map<String, String> names) {
+        names.putIfAbsent(type.getObfuscatedName(), type.getMappedName());
+        type.getChildren().forEach(child -> collectNames(child, names));
+    }
+
+    /**
+     * Determines if any member of the given type or its children refers to one of the given type names.
+     */
+    private static boolean refersTo(AtlasType type, Set<String> names) {
+        for (AtlasMethod method : type.getMethods()) {
+            if (names.contains(elementType(method.getReturnType()))) {
+                return true;
+            }
+            for (String argumentType : method.getArgumentTypes()) {
+                if (names.contains(elementType(argumentType))) {
+                    return true;
+                }
+            }
+        }
+        for (AtlasField field : type.getFields()) {
+            if (names.contains(elementType(field.getType()))) {
+                return true;
+            }
+        }
+        return type.getChildren().stream().anyMatch(child -> refersTo(child, names));
+    }
+
+    private static String elementType(String type) {
+        int array = type == null ? -1 : type.indexOf('[');
+        return array < 0 ? type : type.substring(0, array);
+    }
+
+    /**
+     * The class blocks of a top-level type and its nested types, along with the types built from them.
+     */
+    private static class Group {
+        private final String key;
+        private final List<ByteBuffer> blocks = Lists.newArrayList();
+        private HashCode hash;
+
+        private List<AtlasType> types;
+        private List<AtlasType.Builder> builders, topLevelTypes;
+
+        private Group(String key) {
+            this.key = key;
+        }
+
+        private void addBlock(ByteBuffer buffer, int start, int end) {
+            ByteBuffer block = buffer.duplicate();
+            block.limit(end);
+            block.position(start);
+            this.blocks.add(block);
+        }
+
+        private void hash() {
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            for (ByteBuffer block : this.blocks) {
+                hasher.putBytes(block.duplicate());
+            }
+            this.hash = hasher.hash();
+        }
+
+        private void parse() {
+            this.builders = Lists.newArrayList();
+            for (ByteBuffer block : this.blocks) {
+                this.builders.addAll(MojangMappingsReader.parseTypes(new MappingsLexer(block)));
+            }
+            this.topLevelTypes = NestedTypeLinker.link(this.builders);
+        }
+
+        /**
+         * Keeps the types built for this group and drops everything that refers to the source.
+         */
+        private void finish(AtlasMappings mappings) {
+            if (this.builders != null) {
+                this.types = ImmutableList.copyOf(this.topLevelTypes.stream().map(type -> type.build(mappings)).iterator());
+            }
+            this.blocks.clear();
+            this.builders = null;
+            this.topLevelTypes = null;
+        }
+    }
+
+    /**
+     * The result of loading mappings through a reloader.
+     */
+    public static class Reload {
+        private final AtlasMappings mappings;
+        private final ImmutableSet<String> changedTypes, rebuiltTypes;
+
+        private Reload(AtlasMappings mappings, ImmutableSet<String> changedTypes, ImmutableSet<String> rebuiltTypes) {
+            this.mappings = mappings;
+            this.changedTypes = changedTypes;
+            this.rebuiltTypes = rebuiltTypes;
+        }
+
+        /**
+         * Gets the mappings that were loaded.
+         *
+         * @return the loaded mappings.
+         */
+        public AtlasMappings getMappings() {
+            return this.mappings;
+        }
+
+        /**
+         * Gets the obfuscated names of every type whose class block was added, removed or changed, along with the other types nested in the same top-level type.
+         *
+         * @return the obfuscated names of the changed types.
+         */
+        public ImmutableSet<String> getChangedTypes() {
+            return this.changedTypes;
+        }
+
+        /**
+         * Gets the obfuscated names of the types whose own blocks didn't change, but were rebuilt because a type they refer to was renamed.
+         *
+         * @return the obfuscated names of the rebuilt types.
+         */
+        public ImmutableSet<String> getRebuiltTypes() {
+            return this.rebuiltTypes;
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.tridevmc.atlas.read;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.tridevmc.atlas.mappings.AtlasType;
+import org.pmw.tinylog.Logger;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attaches nested types to their enclosing types for readers of formats that list every type at the top level.
+ */
+final class NestedTypeLinker {
+
+    private NestedTypeLinker() {
+    }
+
+    /**
+     * Attaches nested types to the closest enclosing type found by trimming their name at each "$".
+     * Nested types without any enclosing type are treated as top-level types.
+     *
+     * @param types every type read, in the order they were read.
+     * @return the top-level types, in the order they were read.
+     */
+    static List<AtlasType.Builder> link(List<AtlasType.Builder> types) {
+        List<AtlasType.Builder> topLevelTypes = Lists.newArrayList();
+        Map<String, AtlasType.Builder> typeBuilders = Maps.newHashMapWithExpectedSize(types.size());
+        for (AtlasType.Builder type : types) {
+            typeBuilders.putIfAbsent(type.getObfuscatedName(), type);
+        }
+        for (AtlasType.Builder type : types) {
+            String obfuscatedName = type.getObfuscatedName();
+            AtlasType.Builder parent = null;
+            for (int split = obfuscatedName.lastIndexOf('$'); parent == null && split > 0; split = obfuscatedName.lastIndexOf('$', split - 1)) {
+                parent = typeBuilders.get(obfuscatedName.substring(0, split));
+            }
+            if (parent != null) {
+                parent.addChild(type);
+            } else {
+                if (obfuscatedName.indexOf('$') > 0) {
+                    Logger.warn("No enclosing type was found for {}, adding it as a top-level type", obfuscatedName);
+                }
+                topLevelTypes.add(type);
+            }
+        }
+        return topLevelTypes;
+    }
+
+}
@@ -2,201 +2,316 @@ package com.tridevmc.atlas.read;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.tridevmc.atlas.mappings.*;
-import com.tridevmc.atlas.util.StringFixer;
 import org.pmw.tinylog.Logger;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-
-import static com.tridevmc.atlas.util.StringFixer.dotsToSlash;
+import java.util.TreeMap;
 
+/**
+ * Reads SRG mappings from lines already in memory, a memory-mapped file, or streamed from an InputStream.
+ * Lines are tokenized from their bytes by a {@link MappingsLexer}.
+ * <p>
+ * SRG method descriptors use obfuscated names, they're parsed directly and each distinct component is converted to a mapped name once.
+ * Methods referring to types that haven't been read yet are held back until the rest of the mappings have been read.
+ */
 public class SeargeMappingsReader implements IMappingsReader {
     private final String name;
     private final List<String> lines;
+    private final Path path;
+    private final InputStream input;
     private final Map<String, String> fields;
     private final Map<String, String> methods;
 
-    private static final Pattern LINE_SPLITTER = Pattern.compile("([A-z$0-9]+) (.+)");
-    private static final Pattern ARG_SPLITTER = Pattern.compile("(\\[*(?:L[A-z$0-9/]+;|I|V|Z|B|C|S|D|F|J))");
-    private static final Pattern MAPPED_SPLITTER = Pattern.compile("\\(.*\\).+ (.+)");
-
     public SeargeMappingsReader(String name, List<String> lines, Map<String, String> fields, Map<String, String> methods) throws IOException {
+        this(name, Collections.unmodifiableList(lines), null, null, fields, methods);
+    }
+
+    /**
+     * Creates a reader that memory-maps the given file when read.
+     *
+     * @param name    the name of the mappings.
+     * @param path    the file to read the mappings from.
+     * @param fields  the mapped names of SRG field names, keyed by SRG name.
+     * @param methods the mapped names of SRG method names, keyed by SRG name.
+     */
+    public SeargeMappingsReader(String name, Path path, Map<String, String> fields, Map<String, String> methods) {
+        this(name, null, path, null, fields, methods);
+    }
+
+    /**
+     * Creates a reader that streams the mappings from the given InputStream when read, the stream is closed once read.
+     *
+     * @param name    the name of the mappings.
+     * @param input   the stream to read the mappings from.
+     * @param fields  the mapped names of SRG field names, keyed by SRG name.
+     * @param methods the mapped names of SRG method names, keyed by SRG name.
+     */
+    public SeargeMappingsReader(String name, InputStream input, Map<String, String> fields, Map<String, String> methods) {
+        this(name, null, null, input, fields, methods);
+    }
+
+    private SeargeMappingsReader(String name, List<String> lines, Path path, InputStream input, Map<String, String> fields, Map<String, String> methods) {
         this.name = name;
         this.lines = lines;
+        this.path = path;
+        this.input = input;
         this.fields = fields;
         this.methods = methods;
     }
 
     @Override
     public AtlasMappings read() {
+        if (this.lines != null) {
+            return this.read(new MappingsLexer(ByteBuffer.wrap(String.join("\n", this.lines).getBytes(StandardCharsets.UTF_8))));
+        }
+        try {
+            if (this.path != null) {
+                return this.read(new MappingsLexer(MappingsFiles.map(this.path)));
+            }
+            try (ReadableByteChannel channel = Channels.newChannel(this.input)) {
+                return this.read(new MappingsLexer(channel));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read SRG mappings " + this.name, e);
+        }
+    }
+
+    @Override
+    public HashCode fingerprint() {
+        if (this.input != null) {
+            return null;
+        }
+        Hasher hasher = Hashing.sha256().newHasher().putString("searge", StandardCharsets.UTF_8).putString(this.name, StandardCharsets.UTF_8);
+        CachingMappingsReader.putSource(hasher, this.lines, this.path);
+        // The order of the maps doesn't change the result, so sort them before hashing.
+        for (Map<String, String> names : Arrays.asList(this.fields, this.methods)) {
+            hasher.putInt(names.size());
+            new TreeMap<>(names).forEach((key, value) -> hasher.putString(key, StandardCharsets.UTF_8).putByte((byte) 0)
+                    .putString(value, StandardCharsets.UTF_8).putByte((byte) 0));
+        }
+        return hasher.hash();
+    }
+
+    private AtlasMappings read(MappingsLexer lexer) {
         AtlasMappings.Builder mappingsBuilder = new AtlasMappings.Builder(this.name, OffsetDateTime.now().format(DateTimeFormatter.ISO_DATE));
+        DescriptorResolver resolver = new DescriptorResolver();
+        List<AtlasType.Builder> types = Lists.newArrayList();
+        List<PendingMethod> pendingMethods = Lists.newArrayList();
         AtlasType.Builder currentType = null;
-        Map<String, AtlasType.Builder> typeBuilders = Maps.newHashMap();
-        Map<String, List<UnresolvedMethod>> unresolvedMethods = Maps.newHashMap();
 
-        for (String l : lines) {
-            List<String> parts = getFullBodyMatch(l.trim(), LINE_SPLITTER);
-            if (parts.size() != 2) {
-                throw new RuntimeException("Parsed a line <" + l + "> with an invalid format");
+        while (lexer.nextLine()) {
+            int start = lexer.skipWhitespace(lexer.getLineStart());
+            if (start == lexer.getLineEnd()) {
+                continue;
             }
-            String name = dotsToSlash(parts.get(0));
-            String arg = dotsToSlash(parts.get(1));
+            int space = lexer.indexOf(' ', start);
+            int argStart = space < 0 ? lexer.getLineEnd() : lexer.skipWhitespace(space + 1);
+            int argEnd = lexer.trimEnd(argStart, lexer.getLineEnd());
+            if (argStart == argEnd) {
+                throw new RuntimeException("Parsed a line <" + lexer.line() + "> with an invalid format");
+            }
+            String name = lexer.name(start, space);
 
-            if (l.startsWith("\t")) {
+            if (lexer.byteAt(lexer.getLineStart()) == '\t') {
                 // We're dealing with something that needs a pre-existing type
                 if (currentType == null) {
-                    throw new RuntimeException("Parsed a dependent line <" + l + "> without a type");
+                    throw new RuntimeException("Parsed a dependent line <" + lexer.line() + "> without a type");
                 }
-                if (arg.startsWith("(")) {
+                if (lexer.byteAt(argStart) == '(') {
                     // Probably a method.
-                    if (!unresolvedMethods.containsKey(currentType.getObfuscatedName())) {
-                        unresolvedMethods.put(currentType.getObfuscatedName(), Lists.newArrayList());
+                    int mappedStart = lexer.lastIndexOf(' ', argStart, argEnd);
+                    int descriptorEnd = lexer.indexOf(')', argStart);
+                    if (mappedStart < 0 || mappedStart + 1 >= argEnd || descriptorEnd < 0 || descriptorEnd > mappedStart) {
+                        throw new RuntimeException("Parsed a method <" + lexer.line() + "> with an invalid format");
+                    }
+                    String descriptor = lexer.name(argStart, lexer.trimEnd(argStart, mappedStart));
+                    String mappedName = lexer.name(mappedStart + 1, argEnd);
+                    if (mappedName.startsWith("func") && this.methods.containsKey(mappedName)) {
+                        mappedName = this.methods.get(mappedName);
+                    }
+                    PendingMethod method = new PendingMethod(currentType, name, mappedName, descriptor);
+                    if (!method.resolve(resolver, false)) {
+                        pendingMethods.add(method);
                     }
-                    unresolvedMethods.get(currentType.getObfuscatedName()).add(new UnresolvedMethod(name, arg));
                 } else {
                     // Probably a field.
-                    if (arg.startsWith("field") && fields.containsKey(arg)) {
-                        arg = fields.get(arg);
+                    String arg = lexer.name(argStart, argEnd);
+                    if (arg.startsWith("field") && this.fields.containsKey(arg)) {
+                        arg = this.fields.get(arg);
                     }
-                    AtlasField.Builder builder = new AtlasField.Builder(name, arg, "");
-
-                    currentType.addMember(builder);
+                    currentType.addMember(new AtlasField.Builder(name, arg, ""));
                 }
             } else {
                 // We're dealing with a brand new type
                 if (currentType != null) {
-                    Logger.info("Finished building type {}", currentType);
-                }
-                if (name.contains("$")) {
-                    String[] split = name.split("\\$");
-                    currentType = new AtlasType.Builder(name, arg);
-                    typeBuilders.get(split[0]).addChild(split, currentType);
-                } else {
-                    currentType = new AtlasType.Builder(name, arg);
-                    typeBuilders.put(name, currentType);
-                    mappingsBuilder.addType(currentType);
+                    Logger.trace("Finished building type {}", currentType);
                 }
+                currentType = new AtlasType.Builder(name, lexer.name(argStart, argEnd));
+                resolver.addType(currentType);
+                types.add(currentType);
             }
         }
 
-        // Now deal with SRG's lack of unobfuscated argument and return types.
-        for(Map.Entry<String, List<UnresolvedMethod>> entry : unresolvedMethods.entrySet()) {
-            String typeName = entry.getKey();
-            if(typeName.contains("$")) {
-                String[] split = entry.getKey().split("\\$");
-                currentType =  typeBuilders.get(split[0]).getChild(typeName);
-            } else {
-                currentType = typeBuilders.get(typeName);
-            }
-
-            // For every method that has obfuscated type values (read: all of them)
-            // within this type, iterate over it and get every true name of
-            // the obfuscated type signatures within. For parity with
-            // Mojang mappings.
-            for(UnresolvedMethod s : entry.getValue()) {
-                List<String> args = getAllMatches(s.argument, ARG_SPLITTER)
-                        .stream()
-                        .map(StringFixer::dotsToSlash)
-                        .map(str -> webToJava(str, typeBuilders))
-                        .collect(Collectors.toList());
-                String name = dotsToSlash(getFullBodyMatch(s.argument, MAPPED_SPLITTER).get(0));
-                if(name.startsWith("func") && methods.containsKey(name)) {
-                    name = methods.get(name);
-                }
-                AtlasMethod.Builder b = new AtlasMethod.Builder(s.obfuscatedName, name, args.get(args.size()-1), args.subList(0, args.size()-1));
-                currentType.addMember(b);
-            }
+        // Methods referring to types declared further down can be resolved now every type is known.
+        for (PendingMethod method : pendingMethods) {
+            method.resolve(resolver, true);
         }
-
-        return mappingsBuilder.build();
+        NestedTypeLinker.link(types).forEach(mappingsBuilder::addType);
+        return mappingsBuilder.build(false);
     }
 
-    private static List<String> getAllMatches(String s, Pattern p) {
-        List<String> matches = Lists.newArrayList();
-        Matcher m = p.matcher(s);
-        while (m.find()) {
-            matches.add(m.group());
+    /**
+     * Converts the components of SRG-style ObjectWeb descriptors (ex. {@code Lbz$d;}) into the Java-esque names used by Mojang mappings.
+     * <p>
+     * Each distinct component is only converted once, components referring to types that haven't been read yet aren't cached.
+     */
+    private static class DescriptorResolver {
+        private final Map<String, AtlasType.Builder> typeBuilders = Maps.newHashMap();
+        private final Map<String, String> converted = Maps.newHashMap();
+
+        private void addType(AtlasType.Builder type) {
+            this.typeBuilders.putIfAbsent(type.getObfuscatedName(), type);
         }
-        return matches;
-    }
 
-    private static List<String> getFullBodyMatch(String s, Pattern p) {
-        List<String> matches = Lists.newArrayList();
-        Matcher m = p.matcher(s);
-        if(m.matches()) {
-            for(int i =1;i <= m.groupCount();i++) {
-                matches.add(m.group(i));
+        /**
+         * Parses a descriptor into its converted argument types followed by its converted return type.
+         *
+         * @param descriptor the descriptor to parse.
+         * @param complete   true if every type has been read and unknown types should be kept as-is.
+         * @return the converted types, or null if a type hasn't been read yet and complete is false.
+         */
+        private List<String> parse(String descriptor, boolean complete) {
+            List<String> types = Lists.newArrayList();
+            int index = 1;
+            while (index < descriptor.length()) {
+                char c = descriptor.charAt(index);
+                if (c == ')') {
+                    index++;
+                    continue;
+                }
+                int end = index;
+                while (end < descriptor.length() && descriptor.charAt(end) == '[') {
+                    end++;
+                }
+                if (end < descriptor.length() && descriptor.charAt(end) == 'L') {
+                    end = descriptor.indexOf(';', end);
+                    if (end < 0) {
+                        throw new RuntimeException("Unterminated type in descriptor '" + descriptor + "'");
+                    }
+                }
+                end++;
+                String type = this.convert(descriptor.substring(index, Math.min(end, descriptor.length())), complete);
+                if (type == null) {
+                    return null;
+                }
+                types.add(type);
+                index = end;
             }
+            return types;
         }
-        return matches;
-    }
-
-    /**
-     * Hackeneyed method to take an SRG-style ObjectWeb function signature (ex. {@code (Lbz$d;)Lbs$a;})
-     * and convert it into a more traditional Java-esque form, in line with Mojang's mapping
-     * function signatures.
-     *
-     * @param arg The string to convert
-     * @param typeBuilders A list of types to sample the obfuscated names from
-     * @return String converted into Java-esque function signature form
-     */
-    private static String webToJava(String arg, Map<String, AtlasType.Builder> typeBuilders) {
-        StringBuilder c = new StringBuilder();
 
-        int arrayCount = (int)arg.chars().filter(ch -> ch == '[').count();
-        arg = arg.replace("[","");
+        private String convert(String component, boolean complete) {
+            String type = this.converted.get(component);
+            if (type != null) {
+                return type;
+            }
 
-        if(arg.startsWith("L")) {
-            String obfName = arg.substring(1).substring(0, arg.length()-2);
-            if(typeBuilders.containsKey(obfName)) {
-                c.append(typeBuilders.get(obfName).getMappedName());
+            int arrayCount = 0;
+            while (component.charAt(arrayCount) == '[') {
+                arrayCount++;
             }
-            // If the name contains a forward slash, we can almost certainly conclude
-            // it's already fully qualified and just encoded weird. Otherwise,
-            // it's probably something we don't know about, and should. Report it.
-            else if(!obfName.contains("/")) {
-                Logger.warn("appending obfuscated name ("+obfName+") - this probably means something is wrong!");
-                c.append(obfName);
+            StringBuilder c = new StringBuilder();
+            char key = component.charAt(arrayCount);
+            if (key == 'L') {
+                String obfName = component.substring(arrayCount + 1, component.length() - 1);
+                AtlasType.Builder typeBuilder = this.typeBuilders.get(obfName);
+                if (typeBuilder != null) {
+                    c.append(typeBuilder.getMappedName());
+                } else if (obfName.indexOf('/') >= 0) {
+                    // If the name contains a forward slash, we can almost certainly conclude
+                    // it's already fully qualified and just encoded weird.
+                    c.append(obfName);
+                } else if (!complete) {
+                    // Might be declared further down.
+                    return null;
+                } else {
+                    // Otherwise, it's probably something we don't know about, and should. Report it.
+                    Logger.warn("appending obfuscated name (" + obfName + ") - this probably means something is wrong!");
+                    c.append(obfName);
+                }
+            } else {
+                switch (key) {
+                    case 'I': c.append("int"); break;
+                    case 'V': c.append("void"); break;
+                    case 'Z': c.append("boolean"); break;
+                    case 'B': c.append("byte"); break;
+                    case 'C': c.append("char"); break;
+                    case 'S': c.append("short"); break;
+                    case 'D': c.append("double"); break;
+                    case 'F': c.append("float"); break;
+                    case 'J': c.append("long"); break;
+                    default:
+                        throw new RuntimeException("Unknown ObjectWeb key '" + component + "'");
+                }
             }
-        } else {
-            switch(arg) {
-                case "I": c.append("int"); break;
-                case "V": c.append("void"); break;
-                case "Z": c.append("boolean"); break;
-                case "B": c.append("byte"); break;
-                case "C": c.append("char"); break;
-                case "S": c.append("short"); break;
-                case "D": c.append("double"); break;
-                case "F": c.append("float"); break;
-                case "J": c.append("long"); break;
-                default:
-                    throw new RuntimeException("Unknown ObjectWeb key '"+arg+"'");
+            for (int i = 0; i < arrayCount; i++) {
+                c.append("[]");
             }
+            type = c.toString();
+            this.converted.put(component, type);
+            return type;
         }
-        for (int i =0;i < arrayCount;i++) {
-            c.append("[]");
-        }
-        return c.toString();
     }
 
     /**
-     * Represents an unresolved method within a type, including
-     * its original obfuscated name and signature/mapped name.
+     * Represents a method within a type that may not have been resolved yet, including
+     * its original obfuscated name and descriptor.
      */
-    static class UnresolvedMethod {
+    private static class PendingMethod {
+        private final AtlasType.Builder owner;
         private final String obfuscatedName;
-        private final String argument;
+        private final String mappedName;
+        private final String descriptor;
 
-        public UnresolvedMethod(String a, String b) {
-            this.obfuscatedName = a;
-            this.argument = b;
+        private PendingMethod(AtlasType.Builder owner, String obfuscatedName, String mappedName, String descriptor) {
+            this.owner = owner;
+            this.obfuscatedName = obfuscatedName;
+            this.mappedName = mappedName;
+            this.descriptor = descriptor;
+        }
+
+        /**
+         * Attempts to add this method to its owner.
+         *
+         * @param resolver the resolver to convert the descriptor with.
+         * @param complete true if every type has been read.
+         * @return true if the method was added, false if it refers to a type that hasn't been read yet.
+         */
+        private boolean resolve(DescriptorResolver resolver, boolean complete) {
+            List<String> types = resolver.parse(this.descriptor, complete);
+            if (types == null) {
+                return false;
+            }
+            AtlasMethod.Builder method = new AtlasMethod.Builder(this.obfuscatedName, this.mappedName, types.get(types.size() - 1), types.subList(0, types.size() - 1));
+            // The descriptor read is already the obfuscated descriptor, so there's no need to rebuild it later.
+            this.owner.addMember(method.setDescriptors(this.descriptor, null));
+            return true;
         }
     }
-}
\ No newline at end of file
+}
@@ -5,7 +5,8 @@ public class StringFixer {
 
 
     public static String dotsToSlash(String str) {
-        return str.replace(".", "/");
+        // The char overload returns the original instance when there is nothing to replace.
+        return str.replace('.', '/');
     }
 
 }
@@ -0,0 +1,397 @@
+package com.tridevmc.atlas.util;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Reads entries from a zip file in any order and from any number of threads at once.
+ * <p>
+ * The central directory is read once when the archive is opened, after which each entry is read with positional reads on a shared FileChannel
+ * and inflated on the calling thread, so entries can be decompressed in parallel. Zip64 archives are supported, encrypted entries and
+ * compression methods other than STORED and DEFLATED are not.
+ */
+public class ZipArchive implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ImmutableList<Entry> entries;
+
+    private ZipArchive(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.entries = this.readCentralDirectory();
+    }
+
+    /**
+     * Opens the zip file at the given path and reads its central directory.
+     *
+     * @param path the zip file to open.
+     * @return the opened archive.
+     * @throws IOException if the file couldn't be opened or isn't a valid zip file.
+     */
+    public static ZipArchive open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ZipArchive(path, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets every entry in the archive, in the order they appear in the central directory.
+     *
+     * @return the entries of the archive.
+     */
+    public ImmutableList<Entry> getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * Reads and decompresses the contents of the given entry, safe to call from several threads at once.
+     *
+     * @param entry the entry to read, must belong to this archive.
+     * @return the uncompressed contents of the entry.
+     * @throws IOException if the entry couldn't be read, or its contents don't match its checksum.
+     */
+    public byte[] read(Entry entry) throws IOException {
+        if (entry.size > Integer.MAX_VALUE - 8) {
+            throw new ZipException("Entry " + entry.name + " in " + this.path + " is too large to read into memory");
+        }
+        if (entry.method != ZipEntry.STORED && entry.method != ZipEntry.DEFLATED) {
+            throw new ZipException("Entry " + entry.name + " in " + this.path + " uses unsupported compression method " + entry.method);
+        }
+        ByteBuffer raw = this.readRaw(entry);
+        byte[] data;
+        if (entry.method == ZipEntry.STORED) {
+            if (raw.remaining() != entry.size) {
+                throw new ZipException("Entry " + entry.name + " in " + this.path + " is truncated");
+            }
+            data = Arrays.copyOfRange(raw.array(), raw.position(), raw.limit());
+        } else {
+            data = new byte[(int) entry.size];
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(raw.array(), raw.position(), raw.remaining());
+                int length = 0;
+                while (length < data.length && !inflater.finished()) {
+                    int inflated = inflater.inflate(data, length, data.length - length);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += inflated;
+                }
+                if (length != data.length) {
+                    throw new ZipException("Entry " + entry.name + " in " + this.path + " is truncated");
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("Entry " + entry.name + " in " + this.path + " is corrupt: " + e.getMessage());
+            } finally {
+                inflater.end();
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if (crc.getValue() != entry.crc) {
+            throw new ZipException("Entry " + entry.name + " in " + this.path + " doesn't match its checksum");
+        }
+        return data;
+    }
+
+    /**
+     * Reads the compressed data of the given entry as it's stored in the archive.
+     * <p>
+     * The local header usually has the same name and extra field as the central directory, so the header and data are read together in a single read where possible.
+     *
+     * @param entry the entry to read, must belong to this archive.
+     * @return a heap buffer positioned at the start of the data and limited to its end.
+     * @throws IOException if the entry couldn't be read.
+     */
+    public ByteBuffer readRaw(Entry entry) throws IOException {
+        if (entry.compressedSize > Integer.MAX_VALUE - 8 - LOCAL_HEADER_SIZE - entry.localHeaderLength) {
+            throw new ZipException("Entry " + entry.name + " in " + this.path + " is too large to read into memory");
+        }
+        int expected = LOCAL_HEADER_SIZE + entry.localHeaderLength + (int) entry.compressedSize;
+        ByteBuffer buffer = ByteBuffer.allocate(expected).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.limit((int) Math.min(expected, this.channel.size() - entry.localHeaderOffset));
+        this.readFully(buffer, entry.localHeaderOffset);
+        if (buffer.limit() < LOCAL_HEADER_SIZE || buffer.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Entry " + entry.name + " in " + this.path + " has no local header");
+        }
+        int dataStart = LOCAL_HEADER_SIZE + Short.toUnsignedInt(buffer.getShort(26)) + Short.toUnsignedInt(buffer.getShort(28));
+        if (dataStart != LOCAL_HEADER_SIZE + entry.localHeaderLength) {
+            buffer = ByteBuffer.allocate((int) entry.compressedSize);
+            this.readFully(buffer, entry.localHeaderOffset + dataStart);
+            return buffer;
+        }
+        buffer.position(dataStart);
+        return buffer;
+    }
+
+    /**
+     * Gets the position of the first byte of an entry's compressed data in the file, following its local header.
+     *
+     * @param entry the entry to find the data of.
+     * @return the offset of the entry's data from the start of the file.
+     * @throws IOException if the local header couldn't be read.
+     */
+    public long getDataOffset(Entry entry) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.readFully(header, entry.localHeaderOffset);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Entry " + entry.name + " in " + this.path + " has no local header");
+        }
+        return entry.localHeaderOffset + LOCAL_HEADER_SIZE + Short.toUnsignedInt(header.getShort(26)) + Short.toUnsignedInt(header.getShort(28));
+    }
+
+    /**
+     * Gets the channel the archive is read from, reads must be positional as the channel is shared between threads.
+     *
+     * @return the channel of the archive.
+     */
+    public FileChannel getChannel() {
+        return this.channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private ImmutableList<Entry> readCentralDirectory() throws IOException {
+        long fileSize = this.channel.size();
+        int tailSize = (int) Math.min(fileSize, END_SIZE + MAX_COMMENT_LENGTH);
+        ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+        this.readFully(tail, fileSize - tailSize);
+
+        int end = tailSize - END_SIZE;
+        while (end >= 0 && (tail.getInt(end) != END_SIGNATURE || end + END_SIZE + Short.toUnsignedInt(tail.getShort(end + 20)) > tailSize)) {
+            end--;
+        }
+        if (end < 0) {
+            throw new ZipException(this.path + " is not a zip file");
+        }
+        long entryCount = Short.toUnsignedInt(tail.getShort(end + 10));
+        long directorySize = Integer.toUnsignedLong(tail.getInt(end + 12));
+        long directoryOffset = Integer.toUnsignedLong(tail.getInt(end + 16));
+
+        // Archives with too many entries or too large to describe in the end record store the real values in a zip64 end record.
+        long endPosition = fileSize - tailSize + end;
+        if (endPosition >= ZIP64_LOCATOR_SIZE) {
+            ByteBuffer locator = ByteBuffer.allocate(ZIP64_LOCATOR_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            this.readFully(locator, endPosition - ZIP64_LOCATOR_SIZE);
+            if (locator.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+                ByteBuffer zip64End = ByteBuffer.allocate(56).order(ByteOrder.LITTLE_ENDIAN);
+                this.readFully(zip64End, locator.getLong(8));
+                if (zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+                    throw new ZipException(this.path + " has an invalid zip64 end record");
+                }
+                entryCount = zip64End.getLong(32);
+                directorySize = zip64End.getLong(40);
+                directoryOffset = zip64End.getLong(48);
+            }
+        }
+        if (directorySize > Integer.MAX_VALUE || directoryOffset + directorySize > fileSize) {
+            throw new ZipException(this.path + " has an invalid central directory");
+        }
+
+        ByteBuffer directory = ByteBuffer.allocate((int) directorySize).order(ByteOrder.LITTLE_ENDIAN);
+        this.readFully(directory, directoryOffset);
+        ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+        int position = 0;
+        for (long i = 0; i < entryCount; i++) {
+            if (position + CENTRAL_HEADER_SIZE > directory.limit() || directory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException(this.path + " has an invalid central directory");
+            }
+            int flags = Short.toUnsignedInt(directory.getShort(position + 8));
+            int method = Short.toUnsignedInt(directory.getShort(position + 10));
+            int dosTime = directory.getInt(position + 12);
+            long crc = Integer.toUnsignedLong(directory.getInt(position + 16));
+            long compressedSize = Integer.toUnsignedLong(directory.getInt(position + 20));
+            long size = Integer.toUnsignedLong(directory.getInt(position + 24));
+            int nameLength = Short.toUnsignedInt(directory.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(directory.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(directory.getShort(position + 32));
+            long localHeaderOffset = Integer.toUnsignedLong(directory.getInt(position + 42));
+            if ((flags & 1) != 0) {
+                throw new ZipException(this.path + " contains encrypted entries");
+            }
+
+            byte[] name = new byte[nameLength];
+            directory.position(position + CENTRAL_HEADER_SIZE);
+            directory.get(name);
+            if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+                // Only the values that overflowed are stored in the zip64 extra field, in this order.
+                int extra = position + CENTRAL_HEADER_SIZE + nameLength;
+                int extraEnd = extra + extraLength;
+                while (extra + 4 <= extraEnd) {
+                    int id = Short.toUnsignedInt(directory.getShort(extra));
+                    int length = Short.toUnsignedInt(directory.getShort(extra + 2));
+                    if (id == ZIP64_EXTRA_ID) {
+                        int value = extra + 4;
+                        if (size == ZIP64_MAGIC) {
+                            size = directory.getLong(value);
+                            value += 8;
+                        }
+                        if (compressedSize == ZIP64_MAGIC) {
+                            compressedSize = directory.getLong(value);
+                            value += 8;
+                        }
+                        if (localHeaderOffset == ZIP64_MAGIC) {
+                            localHeaderOffset = directory.getLong(value);
+                        }
+                        break;
+                    }
+                    extra += 4 + length;
+                }
+            }
+
+            entries.add(new Entry(new String(name, StandardCharsets.UTF_8), flags, method, dosTime, crc, compressedSize, size, localHeaderOffset, nameLength + extraLength));
+            position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return entries.build();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = this.channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of " + this.path);
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * An entry read from the central directory of an archive.
+     */
+    public static final class Entry {
+        private final String name;
+        private final int flags, method, dosTime;
+        private final long crc, compressedSize, size, localHeaderOffset;
+        private final int localHeaderLength;
+
+        private Entry(String name, int flags, int method, int dosTime, long crc, long compressedSize, long size, long localHeaderOffset, int localHeaderLength) {
+            this.name = name;
+            this.flags = flags;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+            // The local name and extra field usually match the central directory, the actual length is only known once the local header is read.
+            this.localHeaderLength = localHeaderLength;
+        }
+
+        /**
+         * Gets the full name of the entry, using "/" to separate directories.
+         *
+         * @return the name of the entry.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Gets the general purpose flags of the entry.
+         *
+         * @return the flags of the entry.
+         */
+        public int getFlags() {
+            return this.flags;
+        }
+
+        /**
+         * Gets the compression method of the entry, either {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED} for entries that can be read.
+         *
+         * @return the compression method of the entry.
+         */
+        public int getMethod() {
+            return this.method;
+        }
+
+        /**
+         * Gets the last modification time of the entry, in MS-DOS format with the date in the upper half.
+         *
+         * @return the modification time of the entry.
+         */
+        public int getDosTime() {
+            return this.dosTime;
+        }
+
+        /**
+         * Gets the CRC-32 checksum of the uncompressed contents of the entry.
+         *
+         * @return the checksum of the entry.
+         */
+        public long getCrc() {
+            return this.crc;
+        }
+
+        /**
+         * Gets the size of the entry's data as stored in the archive.
+         *
+         * @return the compressed size of the entry.
+         */
+        public long getCompressedSize() {
+            return this.compressedSize;
+        }
+
+        /**
+         * Gets the size of the entry's contents once decompressed.
+         *
+         * @return the uncompressed size of the entry.
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * Determines if the entry is a directory rather than a file.
+         *
+         * @return true if the entry is a directory, false otherwise.
+         */
+        public boolean isDirectory() {
+            return this.name.endsWith("/");
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+
+}
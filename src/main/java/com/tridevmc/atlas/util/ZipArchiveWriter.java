@@ -0,0 +1,311 @@
+package com.tridevmc.atlas.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a zip file from entries that were already compressed, so the expensive part of writing can be spread across threads.
+ * <p>
+ * Entries are compressed with {@link #compress(String, int, byte[])}, which is safe to call from any number of threads at once,
+ * and then appended in order with {@link #write(CompressedEntry)}. Writing only copies the compressed bytes behind a local header,
+ * the central directory is written when the writer is closed. Zip64 records are written when the archive needs them.
+ * <p>
+ * Entries of another archive can also be copied with {@link #writeRaw(ZipArchive, ZipArchive.Entry)} without being decompressed at all.
+ */
+public class ZipArchiveWriter implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int VERSION = 20;
+    private static final int ZIP64_VERSION = 45;
+    private static final int DATA_DESCRIPTOR_FLAG = 1 << 3;
+    private static final int UTF8_FLAG = 1 << 11;
+    /**
+     * Raw entries up to this size are copied through the output buffer, larger entries are transferred straight from the input channel.
+     */
+    private static final int TRANSFER_THRESHOLD = 1 << 16;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    private final OutputStream out;
+    private final WritableByteChannel channel;
+    private final List<CentralRecord> records = Lists.newArrayList();
+    private final Set<String> names = Sets.newHashSet();
+    private final ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private int method = ZipEntry.DEFLATED;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private long position;
+
+    public ZipArchiveWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(out, 1 << 16);
+        // Writing to a file's own channel lets raw entries be copied by the operating system without passing through the heap.
+        this.channel = out instanceof FileOutputStream ? ((FileOutputStream) out).getChannel() : Channels.newChannel(out);
+    }
+
+    /**
+     * Sets whether entries compressed by this writer are deflated or stored as-is.
+     *
+     * @param method either {@link ZipEntry#DEFLATED}, the default, or {@link ZipEntry#STORED}.
+     * @return this writer.
+     */
+    public ZipArchiveWriter setMethod(int method) {
+        if (method != ZipEntry.DEFLATED && method != ZipEntry.STORED) {
+            throw new IllegalArgumentException("Unsupported compression method " + method);
+        }
+        this.method = method;
+        return this;
+    }
+
+    /**
+     * Sets the level entries are deflated with.
+     *
+     * @param level a level from {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @return this writer.
+     */
+    public ZipArchiveWriter setLevel(int level) {
+        if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        }
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * Compresses an entry using the method and level of this writer, safe to call from several threads at once.
+     *
+     * @param name    the full name of the entry, using "/" to separate directories.
+     * @param dosTime the last modification time of the entry in MS-DOS format, with the date in the upper half.
+     * @param data    the uncompressed contents of the entry.
+     * @return the compressed entry, ready to be written.
+     */
+    public CompressedEntry compress(String name, int dosTime, byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if (this.method == ZipEntry.STORED) {
+            return new CompressedEntry(name, ZipEntry.STORED, dosTime, crc.getValue(), data.length, data, data.length);
+        }
+
+        Deflater deflater = new Deflater(this.level, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] compressed = new byte[Math.max(64, data.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            return new CompressedEntry(name, ZipEntry.DEFLATED, dosTime, crc.getValue(), data.length, compressed, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Appends an entry compressed by {@link #compress(String, int, byte[])} to the archive.
+     *
+     * @param entry the entry to write.
+     * @throws IOException if writing fails, or an entry with the same name was already written.
+     */
+    public void write(CompressedEntry entry) throws IOException {
+        this.beginEntry(entry.name, 0, entry.method, entry.dosTime, entry.crc, entry.compressedLength, entry.size);
+        this.out.write(entry.data, 0, entry.compressedLength);
+        this.position += entry.compressedLength;
+    }
+
+    /**
+     * Copies an entry of another archive to this archive as it's stored, keeping its compression, checksum and modification time.
+     *
+     * @param archive the archive to copy from.
+     * @param entry   the entry to copy, must belong to the given archive.
+     * @throws IOException if reading or writing fails, or an entry with the same name was already written.
+     */
+    public void writeRaw(ZipArchive archive, ZipArchive.Entry entry) throws IOException {
+        // Sizes are always written in the local header, so the copy never needs a data descriptor.
+        int flags = entry.getFlags() & ~(DATA_DESCRIPTOR_FLAG | UTF8_FLAG);
+        this.beginEntry(entry.getName(), flags, entry.getMethod(), entry.getDosTime(), entry.getCrc(), entry.getCompressedSize(), entry.getSize());
+        if (entry.getCompressedSize() <= TRANSFER_THRESHOLD) {
+            ByteBuffer data = archive.readRaw(entry);
+            if (data.remaining() != entry.getCompressedSize()) {
+                throw new EOFException("Entry " + entry.getName() + " is truncated");
+            }
+            this.out.write(data.array(), data.position(), data.remaining());
+        } else {
+            this.out.flush();
+            long position = archive.getDataOffset(entry);
+            long remaining = entry.getCompressedSize();
+            while (remaining > 0) {
+                long transferred = archive.getChannel().transferTo(position, remaining, this.channel);
+                if (transferred <= 0) {
+                    throw new EOFException("Entry " + entry.getName() + " is truncated");
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+        this.position += entry.getCompressedSize();
+    }
+
+    /**
+     * Writes the local header of an entry and records it for the central directory, the entry's data must be written directly after.
+     */
+    private void beginEntry(String entryName, int flags, int method, int dosTime, long crc, long compressedSize, long size) throws IOException {
+        if (!this.names.add(entryName)) {
+            throw new ZipException("Duplicate entry " + entryName);
+        }
+        if (compressedSize >= ZIP64_MAGIC || size >= ZIP64_MAGIC) {
+            throw new ZipException("Entry " + entryName + " is too large to write");
+        }
+        byte[] name = entryName.getBytes(StandardCharsets.UTF_8);
+        if (name.length != entryName.length()) {
+            flags |= UTF8_FLAG;
+        }
+        this.records.add(new CentralRecord(name, flags, method, dosTime, crc, compressedSize, size, this.position));
+
+        this.header.clear();
+        this.header.putInt(LOCAL_HEADER_SIGNATURE).putShort((short) VERSION).putShort((short) flags).putShort((short) method)
+                .putInt(dosTime).putInt((int) crc).putInt((int) compressedSize).putInt((int) size)
+                .putShort((short) name.length).putShort((short) 0);
+        this.out.write(this.header.array(), 0, LOCAL_HEADER_SIZE);
+        this.out.write(name);
+        this.position += LOCAL_HEADER_SIZE + name.length;
+    }
+
+    /**
+     * Writes the central directory and closes the underlying stream.
+     *
+     * @throws IOException if writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        long directoryOffset = this.position;
+        ByteBuffer record = ByteBuffer.allocate(CENTRAL_HEADER_SIZE + 12).order(ByteOrder.LITTLE_ENDIAN);
+        for (CentralRecord entry : this.records) {
+            // Sizes are checked when entries are written, so only the offset of the local header can overflow.
+            boolean zip64 = entry.localHeaderOffset >= ZIP64_MAGIC;
+            record.clear();
+            record.putInt(CENTRAL_HEADER_SIGNATURE).putShort((short) (zip64 ? ZIP64_VERSION : VERSION)).putShort((short) (zip64 ? ZIP64_VERSION : VERSION))
+                    .putShort((short) entry.flags).putShort((short) entry.method).putInt(entry.dosTime)
+                    .putInt((int) entry.crc).putInt((int) entry.compressedSize).putInt((int) entry.size)
+                    .putShort((short) entry.name.length).putShort((short) (zip64 ? 12 : 0)).putShort((short) 0)
+                    .putShort((short) 0).putShort((short) 0).putInt(0)
+                    .putInt((int) (zip64 ? ZIP64_MAGIC : entry.localHeaderOffset));
+            this.out.write(record.array(), 0, CENTRAL_HEADER_SIZE);
+            this.out.write(entry.name);
+            this.position += CENTRAL_HEADER_SIZE + entry.name.length;
+            if (zip64) {
+                record.clear();
+                record.putShort((short) ZIP64_EXTRA_ID).putShort((short) 8).putLong(entry.localHeaderOffset);
+                this.out.write(record.array(), 0, 12);
+                this.position += 12;
+            }
+        }
+        long directorySize = this.position - directoryOffset;
+
+        ByteBuffer end = ByteBuffer.allocate(56 + 20 + 22).order(ByteOrder.LITTLE_ENDIAN);
+        int entryCount = this.records.size();
+        boolean zip64 = entryCount >= ZIP64_MAGIC_COUNT || directoryOffset >= ZIP64_MAGIC || directorySize >= ZIP64_MAGIC;
+        if (zip64) {
+            long zip64EndOffset = this.position;
+            end.putInt(ZIP64_END_SIGNATURE).putLong(44).putShort((short) ZIP64_VERSION).putShort((short) ZIP64_VERSION)
+                    .putInt(0).putInt(0).putLong(entryCount).putLong(entryCount).putLong(directorySize).putLong(directoryOffset);
+            end.putInt(ZIP64_LOCATOR_SIGNATURE).putInt(0).putLong(zip64EndOffset).putInt(1);
+        }
+        end.putInt(END_SIGNATURE).putShort((short) 0).putShort((short) 0)
+                .putShort((short) Math.min(entryCount, ZIP64_MAGIC_COUNT)).putShort((short) Math.min(entryCount, ZIP64_MAGIC_COUNT))
+                .putInt((int) Math.min(directorySize, ZIP64_MAGIC)).putInt((int) Math.min(directoryOffset, ZIP64_MAGIC))
+                .putShort((short) 0);
+        this.out.write(end.array(), 0, end.position());
+        this.position += end.position();
+        this.out.close();
+    }
+
+    /**
+     * An entry that has been compressed and is ready to be written.
+     */
+    public static final class CompressedEntry {
+        private final String name;
+        private final int method, dosTime;
+        private final long crc;
+        private final int size;
+        private final byte[] data;
+        private final int compressedLength;
+
+        private CompressedEntry(String name, int method, int dosTime, long crc, int size, byte[] data, int compressedLength) {
+            this.name = name;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.size = size;
+            this.data = data;
+            this.compressedLength = compressedLength;
+        }
+
+        /**
+         * Gets the full name of the entry.
+         *
+         * @return the name of the entry.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Gets the number of bytes the entry takes in the archive, excluding its header.
+         *
+         * @return the compressed size of the entry.
+         */
+        public int getCompressedSize() {
+            return this.compressedLength;
+        }
+    }
+
+    /**
+     * The details of a written entry kept for the central directory.
+     */
+    private static final class CentralRecord {
+        private final byte[] name;
+        private final int flags, method, dosTime;
+        private final long crc, compressedSize, size, localHeaderOffset;
+
+        private CentralRecord(byte[] name, int flags, int method, int dosTime, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.flags = flags;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+
+}
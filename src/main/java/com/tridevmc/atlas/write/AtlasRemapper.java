@@ -4,46 +4,65 @@ import com.google.common.base.MoreObjects;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.tridevmc.atlas.mappings.*;
+import com.tridevmc.atlas.util.ZipArchive;
+import com.tridevmc.atlas.util.ZipArchiveWriter;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.commons.ClassRemapper;
 import org.objectweb.asm.commons.Remapper;
-import org.objectweb.asm.tree.ClassNode;
 import org.pmw.tinylog.Logger;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.jar.JarEntry;
-import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 /**
- * Remaps an InputStream of a JAR file using names from an AtlasMappings object.
+ * Remaps a JAR file using names from an AtlasMappings object, read either from an InputStream or from a file.
  * <p>
- * TODO: More docs???
+ * The JAR is read through its central directory in two passes. The first only reads the header of each class to build the class hierarchy,
+ * the second streams every entry through the thread pool, remapping classes straight from their bytes, and writes them in their original order.
+ * Only a bounded number of entries are held in memory at once, see {@link #setMaxPendingEntries(int)}.
  *
  * @author Benjamin K
  */
 public class AtlasRemapper {
 
+    /**
+     * The MS-DOS time given to remapped classes, the earliest time a zip entry can hold, so remapping the same JAR twice gives identical output.
+     */
+    private static final int REMAPPED_CLASS_TIME = 0x00210000;
+
     private final AtlasMappings mappings;
     private final InputStream obfuscatedInput;
+    private final Path obfuscatedPath;
     private final ExecutorService threadPool;
+    private boolean reverse;
+    private int maxPendingEntries = 64;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private boolean stored;
+    private boolean passthrough = true;
 
     public AtlasRemapper(AtlasMappings mappings, InputStream obfuscatedInput, ExecutorService threadPool) {
         this.mappings = mappings;
         this.obfuscatedInput = obfuscatedInput;
+        this.obfuscatedPath = null;
         this.threadPool = threadPool;
     }
 
@@ -55,184 +74,433 @@ public class AtlasRemapper {
         this(mappings, obfuscatedInput, Executors.newCachedThreadPool());
     }
 
+    public AtlasRemapper(AtlasMappings mappings, Path obfuscatedPath, ExecutorService threadPool) {
+        this.mappings = mappings;
+        this.obfuscatedInput = null;
+        this.obfuscatedPath = obfuscatedPath;
+        this.threadPool = threadPool;
+    }
+
+    public AtlasRemapper(AtlasMappings mappings, Path obfuscatedPath, int poolSize) {
+        this(mappings, obfuscatedPath, Executors.newFixedThreadPool(poolSize));
+    }
+
+    public AtlasRemapper(AtlasMappings mappings, Path obfuscatedPath) {
+        this(mappings, obfuscatedPath, Executors.newCachedThreadPool());
+    }
+
+    /**
+     * Sets whether the remapper maps from mapped names back to obfuscated names, used to reobfuscate code compiled against mapped names.
+     * <p>
+     * Reverse remapping uses the mapped name indexes of the mappings, so it runs just as fast as regular remapping.
+     * As the code being reobfuscated usually isn't part of the mappings every class in the JAR is remapped, not just those in the mappings.
+     *
+     * @param reverse true to map from mapped names to obfuscated names, false to map from obfuscated names to mapped names.
+     * @return this remapper.
+     */
+    public AtlasRemapper setReverse(boolean reverse) {
+        this.reverse = reverse;
+        return this;
+    }
+
+    /**
+     * Sets the number of entries that may be read, remapped or waiting to be written at once, this bounds the memory used by the remap.
+     * <p>
+     * Entries are written in their original order, so the limit should be comfortably larger than the size of the thread pool to keep every thread busy.
+     *
+     * @param maxPendingEntries the number of entries that may be in flight at once, 64 by default.
+     * @return this remapper.
+     */
+    public AtlasRemapper setMaxPendingEntries(int maxPendingEntries) {
+        if (maxPendingEntries < 1) {
+            throw new IllegalArgumentException("At least one entry must be allowed in flight, got " + maxPendingEntries);
+        }
+        this.maxPendingEntries = maxPendingEntries;
+        return this;
+    }
+
+    /**
+     * Sets the level entries of the remapped JAR are deflated with, entries are compressed in parallel on the thread pool.
+     * <p>
+     * While passthrough is enabled this only affects the remapped classes and the manifest, every other entry keeps its compression from the input JAR.
+     * See {@link #setPassthrough(boolean)} to apply it to every entry.
+     *
+     * @param compressionLevel a level from {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @return this remapper.
+     */
+    public AtlasRemapper setCompressionLevel(int compressionLevel) {
+        if ((compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) && compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * Sets whether entries of the remapped JAR are stored uncompressed, which is fastest when the JAR is only used locally.
+     * <p>
+     * While passthrough is enabled this only affects the remapped classes and the manifest, every other entry keeps its compression from the input JAR.
+     * Pass false to {@link #setPassthrough(boolean)} to store every entry uncompressed.
+     *
+     * @param stored true to store entries uncompressed, false to deflate them.
+     * @return this remapper.
+     */
+    public AtlasRemapper setStored(boolean stored) {
+        this.stored = stored;
+        return this;
+    }
+
     /**
-     * Performs a remapping operation on the InputStream the remapper was built with, writes the new JAR to the OutputStream provided.
+     * Sets whether entries that aren't changed by the remap are copied as they're stored in the input JAR, enabled by default.
+     * <p>
+     * Copied entries are never decompressed, so they keep the compression they had in the input regardless of {@link #setStored(boolean)}
+     * and {@link #setCompressionLevel(int)}. Disable this to compress every entry with those settings.
+     *
+     * @param passthrough true to copy unchanged entries as-is, false to decompress and compress them again.
+     * @return this remapper.
+     */
+    public AtlasRemapper setPassthrough(boolean passthrough) {
+        this.passthrough = passthrough;
+        return this;
+    }
+
+    /**
+     * Performs a remapping operation on the JAR the remapper was built with, writes the new JAR to the OutputStream provided.
+     * <p>
+     * JARs given as an InputStream are first copied to a temporary file, as the class hierarchy has to be read before any class is remapped.
      *
      * @param to the OutputStream to write the mapped JAR file to.
      * @throws IOException if reading or writing fails.
      */
     public void remap(OutputStream to) throws IOException {
-        Logger.info("Loading jar from input stream for remap...");
-        ZipInputStream jarIn = new ZipInputStream(this.obfuscatedInput);
-        JarOutputStream jarOut = new JarOutputStream(to);
-        Map<String, ClassNode> classNodes = Maps.newHashMap();
-        ZipEntry entry;
-        while ((entry = jarIn.getNextEntry()) != null) {
-            byte[] data = this.readEntryBytes(jarIn);
-            if (entry.getName().endsWith(".class") && mappings.getTypeMapped(entry.getName().substring(0, entry.getName().length() - ".class".length())).isPresent()) {
-                ClassReader classReader = new ClassReader(data);
-                ClassNode node = new ClassNode();
-                classReader.accept(node, 0);
-                if (mappings.getTypeMapped(node.name).isPresent()) {
-                    classNodes.put(node.name, node);
-                }
-            } else if (entry.getName().endsWith("MANIFEST.MF")) {
-                Manifest manifest = new Manifest(jarIn);
-                manifest.getEntries().clear();
-                jarOut.putNextEntry(new JarEntry(entry.getName()));
-                manifest.write(jarOut);
-                jarOut.closeEntry();
-            } else {
-                jarOut.putNextEntry(new JarEntry(entry.getName()));
-                jarOut.write(data);
-                jarOut.closeEntry();
-            }
+        if (this.obfuscatedPath != null) {
+            this.remap(this.obfuscatedPath, to);
+            return;
         }
 
-        Logger.info("Loaded {} classes from jar, creating composites...", classNodes.size());
-
-        List<Future<CompositeType>> compositeQueue = Lists.newArrayList();
-        for (Map.Entry<String, ClassNode> nodeEntry : classNodes.entrySet()) {
-            compositeQueue.add(this.threadPool.submit(() -> {
-                List<AtlasType> typeComposite = Lists.newArrayList();
-                List<ClassNode> queue = Lists.newArrayList(nodeEntry.getValue());
-                while (!queue.isEmpty()) {
-                    ClassNode currentNode = queue.remove(0);
-                    mappings.getTypeMapped(currentNode.name).ifPresent(typeComposite::add);
-                    Optional.ofNullable(classNodes.getOrDefault(currentNode.superName, null)).ifPresent(queue::add);
-                    currentNode.interfaces.stream().map(n -> classNodes.getOrDefault(n, null)).filter(Objects::nonNull).forEach(queue::add);
+        Logger.info("Copying jar from input stream for remap...");
+        Path spooled = Files.createTempFile("atlas-remap", ".jar");
+        try {
+            Files.copy(this.obfuscatedInput, spooled, StandardCopyOption.REPLACE_EXISTING);
+            this.remap(spooled, to);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    private void remap(Path jar, OutputStream to) throws IOException {
+        try (ZipArchive archive = ZipArchive.open(jar)) {
+            Logger.info("Reading class hierarchy from {}...", jar);
+            Map<String, List<String>> supertypes = this.readHierarchy(archive);
+
+            Logger.info("Read {} classes from jar, resolving inherited members...", supertypes.size());
+            this.addExternalSupertypes(supertypes);
+            Map<String, ResolvedType> resolvedTypes = this.resolveTypes(supertypes);
+
+            Logger.info("Resolved members for {} types, starting remap...", resolvedTypes.size());
+            long start = Instant.now().toEpochMilli();
+            ZipArchiveWriter jarOut = new ZipArchiveWriter(to)
+                    .setMethod(this.stored ? ZipEntry.STORED : ZipEntry.DEFLATED)
+                    .setLevel(this.compressionLevel);
+            // Entries are remapped in a sliding window and written in their original order, so at most maxPendingEntries are held at once.
+            // The coordinating thread only ever waits on the oldest entry, which has to be written first anyway.
+            Deque<Future<RemappedData>> pending = new ArrayDeque<>(this.maxPendingEntries);
+            int remappedClasses = 0;
+            try {
+                for (ZipArchive.Entry entry : archive.getEntries()) {
+                    if (pending.size() == this.maxPendingEntries) {
+                        remappedClasses += getOrThrow(pending.removeFirst()).write(jarOut, archive);
+                    }
+                    if (this.passthrough && !this.isRemappedEntry(entry.getName()) && !entry.getName().endsWith("MANIFEST.MF")) {
+                        pending.addLast(CompletableFuture.completedFuture(new RemappedData(entry)));
+                    } else {
+                        pending.addLast(this.threadPool.submit(() -> this.remapEntry(archive, entry, resolvedTypes, jarOut)));
+                    }
                 }
-                if (typeComposite.isEmpty()) {
-                    return null;
-                } else {
-                    return new CompositeType(nodeEntry.getKey(), typeComposite);
+                while (!pending.isEmpty()) {
+                    remappedClasses += getOrThrow(pending.removeFirst()).write(jarOut, archive);
                 }
-            }));
-        }
+            } finally {
+                pending.forEach(future -> future.cancel(true));
+            }
+            jarOut.close();
 
-        Map<String, CompositeType> compositeTypes = Maps.newHashMap();
-        while (!compositeQueue.isEmpty()) {
-            List<Future<CompositeType>> completedCompositeStatuses = compositeQueue.stream().filter(Future::isDone).collect(Collectors.toList());
-            compositeQueue.removeAll(completedCompositeStatuses);
-            completedCompositeStatuses.stream().map(this::safeGet).filter(Objects::nonNull).forEach(composite -> compositeTypes.put(composite.rootName, composite));
+            long end = Instant.now().toEpochMilli();
+            long diff = end - start;
+            Logger.info("Remapped and wrote {} classes in {}", remappedClasses, String.format("%02d:%02d.%02d", TimeUnit.MILLISECONDS.toMinutes(diff),
+                    TimeUnit.MILLISECONDS.toSeconds(diff - TimeUnit.MINUTES.toMillis(TimeUnit.MILLISECONDS.toMinutes(diff))),
+                    TimeUnit.MILLISECONDS.toMillis(diff - TimeUnit.SECONDS.toMillis(TimeUnit.MILLISECONDS.toSeconds(diff)) - TimeUnit.MINUTES.toMillis(TimeUnit.MILLISECONDS.toMinutes(diff)))));
         }
 
-        Logger.info("Created {} composites, starting remap...", compositeTypes.size());
+        Logger.info("Done!");
+    }
 
-        long start = Instant.now().toEpochMilli();
-        List<Future<RemappedData>> remappingQueue = Lists.newArrayList();
-        for (ClassNode unmappedNode : classNodes.values()) {
-            remappingQueue.add(this.threadPool.submit(() -> remapClass(compositeTypes, unmappedNode)));
+    /**
+     * Reads the name and direct supertypes of every class that will be remapped, only the header of each class is parsed.
+     *
+     * @return the direct supertypes of each class, superclass first.
+     */
+    private Map<String, List<String>> readHierarchy(ZipArchive archive) throws IOException {
+        List<Future<Map.Entry<String, List<String>>>> headers = Lists.newArrayList();
+        for (ZipArchive.Entry entry : archive.getEntries()) {
+            if (this.isRemappedEntry(entry.getName())) {
+                // Only the names are returned so the bytes of each class can be dropped as soon as its header is read.
+                headers.add(this.threadPool.submit(() -> {
+                    ClassReader reader = new ClassReader(archive.read(entry));
+                    List<String> classSupertypes = Lists.newArrayList();
+                    if (reader.getSuperName() != null) {
+                        classSupertypes.add(reader.getSuperName());
+                    }
+                    Collections.addAll(classSupertypes, reader.getInterfaces());
+                    return Maps.immutableEntry(reader.getClassName(), classSupertypes);
+                }));
+            }
         }
 
-        while (!remappingQueue.isEmpty()) {
-            List<Future<RemappedData>> completedRemapStatuses = remappingQueue.stream().filter(Future::isDone).collect(Collectors.toList());
-            remappingQueue.removeAll(completedRemapStatuses);
-            completedRemapStatuses.stream().map(this::safeGet).filter(Objects::nonNull).forEach(data -> data.write(jarOut));
+        Map<String, List<String>> supertypes = Maps.newHashMap();
+        try {
+            for (Future<Map.Entry<String, List<String>>> header : headers) {
+                Map.Entry<String, List<String>> classSupertypes = getOrThrow(header);
+                if (this.isRemapped(classSupertypes.getKey())) {
+                    supertypes.put(classSupertypes.getKey(), classSupertypes.getValue());
+                }
+            }
+        } finally {
+            headers.forEach(header -> header.cancel(true));
         }
+        return supertypes;
+    }
 
-        jarOut.close();
-        long end = Instant.now().toEpochMilli();
-        long diff = end - start;
-        Logger.info("Remapped and wrote {} classes in {}", classNodes.size(), String.format("%02d:%02d.%02d", TimeUnit.MILLISECONDS.toMinutes(diff),
-                TimeUnit.MILLISECONDS.toSeconds(diff - TimeUnit.MINUTES.toMillis(TimeUnit.MILLISECONDS.toMinutes(diff))),
-                TimeUnit.MILLISECONDS.toMillis(diff - TimeUnit.SECONDS.toMillis(TimeUnit.MILLISECONDS.toSeconds(diff)) - TimeUnit.MINUTES.toMillis(TimeUnit.MILLISECONDS.toMinutes(diff)))));
+    /**
+     * Reads a single entry, remaps it if it's a class and compresses it, the manifest has its per-entry attributes removed as they hold signatures of the original classes.
+     *
+     * @return the entry as it should be written to the output.
+     */
+    private RemappedData remapEntry(ZipArchive archive, ZipArchive.Entry entry, Map<String, ResolvedType> resolvedTypes, ZipArchiveWriter jarOut) throws IOException {
+        byte[] data = archive.read(entry);
+        if (this.isRemappedEntry(entry.getName())) {
+            ClassReader reader = new ClassReader(data);
+            if (this.isRemapped(reader.getClassName())) {
+                String remappedName = this.mapTypeName(reader.getClassName());
+                return new RemappedData(entry.getName(), jarOut.compress(remappedName + ".class", REMAPPED_CLASS_TIME, this.remapClass(resolvedTypes, reader, remappedName)), true);
+            }
+        } else if (entry.getName().endsWith("MANIFEST.MF")) {
+            Manifest manifest = new Manifest(new ByteArrayInputStream(data));
+            manifest.getEntries().clear();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            manifest.write(out);
+            data = out.toByteArray();
+        }
+        return new RemappedData(entry.getName(), jarOut.compress(entry.getName(), entry.getDosTime(), data), false);
+    }
 
-        Logger.info("Done!");
+    /**
+     * Waits for the given future, rethrowing whatever it failed with, checked exceptions other than IOException are wrapped.
+     */
+    private static <T> T getOrThrow(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while remapping jar");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException("Failed to remap jar", cause);
+        }
     }
 
-    private RemappedData remapClass(Map<String, CompositeType> compositeTypes, ClassNode node) {
-        String remappedName = mappings.getTypeNameMapped(node.name);
-        String sourceFileName = remappedName.substring(Math.max(0, remappedName.lastIndexOf("/") + 1));
-        sourceFileName = sourceFileName.substring(0, sourceFileName.contains("$") ? sourceFileName.indexOf("$") : sourceFileName.length()) + ".java";
-        ClassWriter mappedWriter = new ClassWriter(0);
-        ClassRemapper remapper = new ClassRemapper(mappedWriter, new ObjectWebRemapper(compositeTypes));
-        node.accept(remapper);
-        mappedWriter.visitSource(sourceFileName, null);
+    /**
+     * Determines if a JAR entry is a class that would be remapped based on its name.
+     */
+    private boolean isRemappedEntry(String entryName) {
+        return entryName.endsWith(".class") && this.isRemapped(entryName.substring(0, entryName.length() - ".class".length()));
+    }
 
-        return new RemappedData(node.name, remappedName, mappedWriter.toByteArray());
+    /**
+     * Determines if a class is remapped or copied as-is, all classes are remapped when remapping in reverse.
+     */
+    private boolean isRemapped(String className) {
+        return this.reverse || this.mappings.findType(className, false) != null;
     }
 
-    private byte[] readEntryBytes(ZipInputStream inputStream) throws IOException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        byte[] buffer = new byte[4096];
-        int bytesRead;
-        while ((bytesRead = inputStream.read(buffer, 0, buffer.length)) != -1) {
-            out.write(buffer, 0, bytesRead);
+    /**
+     * Gets the name a type is remapped to, or the given name if the type has no mappings.
+     */
+    private String mapTypeName(String name) {
+        return this.reverse ? this.mappings.getTypeNameObfuscated(name) : this.mappings.getTypeNameMapped(name);
+    }
+
+    /**
+     * Limits the supertypes of each type to types that are being remapped or have mappings, types that only exist in the mappings are added without supertypes.
+     * <p>
+     * This lets classes being remapped inherit members from mapped types outside of the JAR, such as mod classes extending game classes.
+     *
+     * @param supertypes the direct supertypes of each type being remapped, superclass first.
+     */
+    private void addExternalSupertypes(Map<String, List<String>> supertypes) {
+        Map<String, List<String>> external = Maps.newHashMap();
+        for (List<String> typeSupertypes : supertypes.values()) {
+            typeSupertypes.removeIf(s -> !supertypes.containsKey(s) && this.mappings.findType(s, this.reverse) == null);
+            typeSupertypes.stream().filter(s -> !supertypes.containsKey(s)).forEach(s -> external.put(s, Collections.emptyList()));
         }
-        return out.toByteArray();
+        supertypes.putAll(external);
     }
 
-    private <T> T safeGet(Future<T> future) {
+    /**
+     * Resolves the inherited members of every type in the given hierarchy, supertypes are resolved before the types that extend them.
+     * <p>
+     * Each type is scheduled on the thread pool as soon as all of its supertypes are resolved, rather than waiting on every type at the same depth.
+     *
+     * @param supertypes the names of the direct supertypes of each type, superclass first, every supertype must also be a key.
+     * @return the resolved members of each type.
+     * @throws IOException if resolving was interrupted.
+     */
+    private Map<String, ResolvedType> resolveTypes(Map<String, List<String>> supertypes) throws IOException {
+        Map<String, CompletableFuture<ResolvedType>> futures = Maps.newHashMapWithExpectedSize(supertypes.size());
+        for (String name : supertypes.keySet()) {
+            this.scheduleResolve(name, supertypes, futures);
+        }
+
+        Map<String, ResolvedType> resolvedTypes = Maps.newHashMapWithExpectedSize(futures.size());
         try {
-            return future.get();
-        } catch (Exception e) {
-            Logger.error("Failed to get value of future {}", e);
-            e.printStackTrace();
+            for (Map.Entry<String, CompletableFuture<ResolvedType>> future : futures.entrySet()) {
+                resolvedTypes.put(future.getKey(), getOrThrow(future.getValue()));
+            }
+        } finally {
+            // Any failure fails every type that depends on it, the rest are cancelled so nothing keeps running once the remap is abandoned.
+            futures.values().forEach(future -> future.cancel(false));
         }
-        return null;
+        return resolvedTypes;
     }
 
     /**
-     * Stores the name and bytes of remapped entries to be written.
+     * Schedules the given type to be resolved once its supertypes are, scheduling the supertypes first if they haven't been already.
+     *
+     * @return a future completed with the resolved members of the type.
+     */
+    private CompletableFuture<ResolvedType> scheduleResolve(String name, Map<String, List<String>> supertypes, Map<String, CompletableFuture<ResolvedType>> futures) {
+        if (futures.containsKey(name)) {
+            CompletableFuture<ResolvedType> future = futures.get(name);
+            // Cyclic hierarchies are invalid but shouldn't hang the remapper, the supertype that closes the cycle is treated as having no members.
+            return future != null ? future : CompletableFuture.completedFuture(ResolvedType.EMPTY);
+        }
+        futures.put(name, null);
+        List<CompletableFuture<ResolvedType>> supertypeFutures = supertypes.get(name).stream()
+                .map(supertype -> this.scheduleResolve(supertype, supertypes, futures))
+                .collect(Collectors.toList());
+        CompletableFuture<ResolvedType> future = CompletableFuture.allOf(supertypeFutures.toArray(new CompletableFuture<?>[0]))
+                .thenApplyAsync(ignored -> {
+                    List<ResolvedType> resolvedSupertypes = supertypeFutures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+                    return ResolvedType.resolve(this.mappings.findType(name, this.reverse), resolvedSupertypes, this.reverse);
+                }, this.threadPool);
+        futures.put(name, future);
+        return future;
+    }
+
+    private byte[] remapClass(Map<String, ResolvedType> resolvedTypes, ClassReader reader, String remappedName) {
+        String sourceFileName = remappedName.substring(Math.max(0, remappedName.lastIndexOf("/") + 1));
+        sourceFileName = sourceFileName.substring(0, sourceFileName.contains("$") ? sourceFileName.indexOf("$") : sourceFileName.length()) + ".java";
+        ClassWriter mappedWriter = new ClassWriter(0);
+        ClassRemapper remapper = new ClassRemapper(mappedWriter, new ObjectWebRemapper(resolvedTypes));
+        reader.accept(remapper, 0);
+        if (!this.reverse) {
+            mappedWriter.visitSource(sourceFileName, null);
+        }
+
+        return mappedWriter.toByteArray();
+    }
+
+    /**
+     * Stores entries to be written, either compressed by a worker or copied from the input as they're stored.
      */
     private static class RemappedData {
-        private final String obfuscatedEntryName, mappedEntryName;
-        private final byte[] data;
+        private final String obfuscatedEntryName;
+        private final ZipArchiveWriter.CompressedEntry entry;
+        private final ZipArchive.Entry rawEntry;
+        private final boolean remapped;
 
-        public RemappedData(String obfuscatedEntryName, String mappedEntryName, byte[] data) {
+        public RemappedData(String obfuscatedEntryName, ZipArchiveWriter.CompressedEntry entry, boolean remapped) {
             this.obfuscatedEntryName = obfuscatedEntryName;
-            this.mappedEntryName = mappedEntryName;
-            this.data = data;
+            this.entry = entry;
+            this.rawEntry = null;
+            this.remapped = remapped;
         }
 
-        public void write(JarOutputStream to) {
-            try {
-                JarEntry entry = new JarEntry(this.mappedEntryName.replace(".", File.separator) + ".class");
-                entry.setTime(0x386D4380);
-                to.putNextEntry(entry);
-                to.write(data);
-                to.closeEntry();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+        public RemappedData(ZipArchive.Entry rawEntry) {
+            this.obfuscatedEntryName = rawEntry.getName();
+            this.entry = null;
+            this.rawEntry = rawEntry;
+            this.remapped = false;
+        }
+
+        /**
+         * Writes the entry to the given JAR.
+         *
+         * @param to   the JAR to write to.
+         * @param from the JAR being remapped, raw entries are copied from it.
+         * @return one if the entry was a remapped class, zero otherwise.
+         */
+        public int write(ZipArchiveWriter to, ZipArchive from) throws IOException {
+            if (this.rawEntry != null) {
+                to.writeRaw(from, this.rawEntry);
+            } else {
+                to.write(this.entry);
             }
+            return this.remapped ? 1 : 0;
         }
 
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(this)
                     .add("obfuscatedEntryName", obfuscatedEntryName)
-                    .add("mappedEntryName", mappedEntryName)
+                    .add("mappedEntryName", this.entry != null ? this.entry.getName() : this.rawEntry.getName())
                     .toString();
         }
     }
 
     /**
-     * Implementation of ObjectWebRemapper that handles remapping using composite types generated from the AtlasMappings used by the AtlasRemapper.
+     * Implementation of ObjectWebRemapper that handles remapping using the resolved types generated from the AtlasMappings used by the AtlasRemapper.
      */
     private class ObjectWebRemapper extends Remapper {
 
-        private final Map<String, CompositeType> compositeTypes;
+        private final Map<String, ResolvedType> resolvedTypes;
 
-        private ObjectWebRemapper(Map<String, CompositeType> compositeTypes) {
-            this.compositeTypes = compositeTypes;
+        private ObjectWebRemapper(Map<String, ResolvedType> resolvedTypes) {
+            this.resolvedTypes = resolvedTypes;
         }
 
         @Override
         public String mapMethodName(String owner, String name, String descriptor) {
-            Optional<CompositeType> type = Optional.ofNullable(this.compositeTypes.getOrDefault(owner, null));
-            Optional<AtlasMethod> method = type.flatMap(m -> m.getMethod(name, descriptor, false));
-            String mapped = method.map(AtlasMember::getMappedName).orElse(name);
-            return mapped;
+            AtlasMethod method;
+            ResolvedType type = this.resolvedTypes.get(owner);
+            if (type != null) {
+                method = type.findMethod(name, descriptor);
+            } else {
+                // Types outside of the JAR have no known hierarchy, so only their own members can be mapped.
+                AtlasType mappedType = AtlasRemapper.this.mappings.findType(owner, AtlasRemapper.this.reverse);
+                method = mappedType == null ? null : mappedType.findMethod(name, descriptor, AtlasRemapper.this.reverse);
+            }
+            return method == null ? name : AtlasRemapper.this.reverse ? method.getObfuscatedName() : method.getMappedName();
         }
 
 
         @Override
         public String mapFieldName(String owner, String name, String descriptor) {
-            Optional<CompositeType> type = Optional.ofNullable(this.compositeTypes.getOrDefault(owner, null));
-            Optional<AtlasField> field = type.flatMap(m -> m.getField(name, false));
-            String mapped = field.map(AtlasMember::getMappedName).orElse(name);
-            return mapped;
+            AtlasField field;
+            ResolvedType type = this.resolvedTypes.get(owner);
+            if (type != null) {
+                field = type.findField(name);
+            } else {
+                AtlasType mappedType = AtlasRemapper.this.mappings.findType(owner, AtlasRemapper.this.reverse);
+                field = mappedType == null ? null : mappedType.findField(name, AtlasRemapper.this.reverse);
+            }
+            return field == null ? name : AtlasRemapper.this.reverse ? field.getObfuscatedName() : field.getMappedName();
         }
 
         @Override
@@ -243,43 +511,87 @@ public class AtlasRemapper {
 
         @Override
         public String map(String internalName) {
-            String mapped = AtlasRemapper.this.mappings.getTypeNameMapped(internalName);
-            return mapped;
+            return AtlasRemapper.this.mapTypeName(internalName);
         }
     }
 
     /**
-     * Used to handle inherited members on objects when mapping, contains a collection of types in order of priority and utility methods to get mapped data.
+     * Stores every member visible on a type including inherited ones, flattened into tables keyed by the name and descriptor being remapped from.
+     * <p>
+     * Tables are shared with supertypes wherever possible: a type that declares no mapped members reuses its supertype's tables,
+     * and method names only present in one supertype reuse that supertype's descriptor table.
      */
-    private static class CompositeType {
-        private final String rootName;
-        private List<AtlasType> types;
+    private static class ResolvedType {
+        private static final ResolvedType EMPTY = new ResolvedType(Collections.emptyMap(), Collections.emptyMap());
 
-        public CompositeType(String rootName, List<AtlasType> types) {
-            this.rootName = rootName;
-            this.types = types;
+        private final Map<String, Map<String, AtlasMethod>> methods;
+        private final Map<String, AtlasField> fields;
+
+        private ResolvedType(Map<String, Map<String, AtlasMethod>> methods, Map<String, AtlasField> fields) {
+            this.methods = methods;
+            this.fields = fields;
         }
 
-        public Optional<AtlasMethod> getMethod(String name, String descriptor, boolean fromMappedName) {
-            Optional<AtlasMethod> out = Optional.empty();
-            for (AtlasType type : types) {
-                if (out.isPresent()) {
-                    break;
+        /**
+         * Resolves the members of a type from its own members and the resolved members of its direct supertypes.
+         *
+         * @param type       the mapped type, or null if the type has no mappings.
+         * @param supertypes     the resolved direct supertypes, in order of priority.
+         * @param fromMappedName whether members are keyed by their mapped or obfuscated names.
+         * @return the resolved members of the type.
+         */
+        private static ResolvedType resolve(AtlasType type, List<ResolvedType> supertypes, boolean fromMappedName) {
+            boolean declaresMembers = type != null && (!type.getFields().isEmpty() || !type.getMethods().isEmpty());
+            if (!declaresMembers) {
+                if (supertypes.isEmpty()) {
+                    return EMPTY;
+                } else if (supertypes.size() == 1) {
+                    return supertypes.get(0);
                 }
-                out = type.getMethod(name, descriptor, fromMappedName);
             }
-            return out;
-        }
 
-        public Optional<AtlasField> getField(String name, boolean fromMappedName) {
-            Optional<AtlasField> out = Optional.empty();
-            for (AtlasType type : types) {
-                if (out.isPresent()) {
-                    break;
+            Map<String, Map<String, AtlasMethod>> methods = Maps.newHashMap();
+            Map<String, AtlasField> fields = Maps.newHashMap();
+            // Lowest priority first so members from higher priority types replace them.
+            for (int i = supertypes.size() - 1; i >= 0; i--) {
+                ResolvedType supertype = supertypes.get(i);
+                supertype.methods.forEach((name, descriptors) -> mergeMethods(methods, name, descriptors));
+                fields.putAll(supertype.fields);
+            }
+            if (type != null) {
+                Map<String, Map<String, AtlasMethod>> declaredMethods = Maps.newHashMap();
+                for (AtlasMethod method : type.getMethods()) {
+                    String name = fromMappedName ? method.getMappedName() : method.getObfuscatedName();
+                    String descriptor = fromMappedName ? method.getMappedDescriptor() : method.getObfuscatedDescriptor();
+                    declaredMethods.computeIfAbsent(name, n -> Maps.newHashMap()).putIfAbsent(descriptor, method);
+                }
+                declaredMethods.forEach((name, descriptors) -> mergeMethods(methods, name, descriptors));
+                // Reversed so the first of any duplicate fields wins, as it does when looked up on the type itself.
+                for (AtlasField field : type.getFields().reverse()) {
+                    fields.put(fromMappedName ? field.getMappedName() : field.getObfuscatedName(), field);
                 }
-                out = type.getField(name, fromMappedName);
             }
-            return out;
+            return new ResolvedType(methods, fields);
+        }
+
+        private static void mergeMethods(Map<String, Map<String, AtlasMethod>> methods, String name, Map<String, AtlasMethod> descriptors) {
+            Map<String, AtlasMethod> existing = methods.get(name);
+            if (existing == null) {
+                methods.put(name, descriptors);
+            } else {
+                Map<String, AtlasMethod> merged = Maps.newHashMap(existing);
+                merged.putAll(descriptors);
+                methods.put(name, merged);
+            }
+        }
+
+        public AtlasMethod findMethod(String name, String descriptor) {
+            Map<String, AtlasMethod> descriptors = this.methods.get(name);
+            return descriptors == null ? null : descriptors.get(descriptor);
+        }
+
+        public AtlasField findField(String name) {
+            return this.fields.get(name);
         }
     }
 
@@ -0,0 +1,216 @@
+package com.tridevmc.atlas.write;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.tridevmc.atlas.read.BinaryMappingsFormat.*;
+
+/**
+ * Writes AtlasMappings in the compact binary format, see {@link com.tridevmc.atlas.read.BinaryMappingsFormat} for the layout.
+ * <p>
+ * Method descriptors are written precomputed so loading the mappings never needs to resolve types.
+ */
+public class BinaryMappingsWriter implements IMappingsWriter {
+
+    private final AtlasMappings mappings;
+
+    public BinaryMappingsWriter(AtlasMappings mappings) {
+        this.mappings = mappings;
+    }
+
+    @Override
+    public void write(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = this.toBuffer();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Serializes the mappings into a new heap buffer, positioned at zero and limited to the length of the data.
+     *
+     * @return a buffer containing the serialized mappings.
+     */
+    public ByteBuffer toBuffer() {
+        return this.toBuffer(false);
+    }
+
+    /**
+     * Serializes the mappings into a new buffer, positioned at zero and limited to the length of the data.
+     *
+     * @param direct whether the buffer should be allocated outside of the heap.
+     * @return a buffer containing the serialized mappings.
+     */
+    public ByteBuffer toBuffer(boolean direct) {
+        StringPool pool = new StringPool();
+        List<AtlasType> types = Lists.newArrayList();
+        List<Integer> parents = Lists.newArrayList();
+        this.mappings.getTypes().forEach(t -> flatten(t, NONE, types, parents));
+
+        int name = pool.add(this.mappings.getName());
+        int dateGenerated = pool.add(this.mappings.getDateGenerated());
+        int fieldCount = 0, methodCount = 0, argumentCount = 0;
+        for (AtlasType type : types) {
+            pool.add(type.getObfuscatedName());
+            pool.add(type.getMappedName());
+            for (AtlasField field : type.getFields()) {
+                pool.add(field.getObfuscatedName());
+                pool.add(field.getMappedName());
+                pool.add(field.getType());
+            }
+            for (AtlasMethod method : type.getMethods()) {
+                pool.add(method.getObfuscatedName());
+                pool.add(method.getMappedName());
+                pool.add(method.getReturnType());
+                pool.add(method.getObfuscatedDescriptor());
+                pool.add(method.getMappedDescriptor());
+                method.getArgumentTypes().forEach(pool::add);
+                argumentCount += method.getArgumentTypes().size();
+            }
+            fieldCount += type.getFields().size();
+            methodCount += type.getMethods().size();
+        }
+
+        int indexSlots = Integer.highestOneBit(Math.max(1, types.size()) * 2 - 1) << 1;
+        int size = HEADER_SIZE + (pool.size() + 1) * Integer.BYTES + pool.dataLength
+                + types.size() * TYPE_RECORD_SIZE + fieldCount * FIELD_RECORD_SIZE
+                + methodCount * METHOD_RECORD_SIZE + argumentCount * ARGUMENT_RECORD_SIZE
+                + 2 * (Integer.BYTES + indexSlots * INDEX_SLOT_SIZE);
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(name).putInt(dateGenerated)
+                .putInt(pool.size()).putInt(pool.dataLength)
+                .putInt(types.size()).putInt(fieldCount).putInt(methodCount).putInt(argumentCount);
+        pool.write(buffer);
+
+        int nextField = 0, nextMethod = 0;
+        for (int i = 0; i < types.size(); i++) {
+            AtlasType type = types.get(i);
+            buffer.putInt(pool.get(type.getObfuscatedName())).putInt(pool.get(type.getMappedName())).putInt(parents.get(i))
+                    .putInt(nextField).putInt(type.getFields().size())
+                    .putInt(nextMethod).putInt(type.getMethods().size());
+            nextField += type.getFields().size();
+            nextMethod += type.getMethods().size();
+        }
+        for (AtlasType type : types) {
+            for (AtlasField field : type.getFields()) {
+                buffer.putInt(pool.get(field.getObfuscatedName())).putInt(pool.get(field.getMappedName())).putInt(pool.get(field.getType()));
+            }
+        }
+        int nextArgument = 0;
+        for (AtlasType type : types) {
+            for (AtlasMethod method : type.getMethods()) {
+                buffer.putInt(pool.get(method.getObfuscatedName())).putInt(pool.get(method.getMappedName())).putInt(pool.get(method.getReturnType()))
+                        .putInt(nextArgument).putInt(method.getArgumentTypes().size())
+                        .putInt(pool.get(method.getObfuscatedDescriptor())).putInt(pool.get(method.getMappedDescriptor()));
+                nextArgument += method.getArgumentTypes().size();
+            }
+        }
+        for (AtlasType type : types) {
+            for (AtlasMethod method : type.getMethods()) {
+                for (String argumentType : method.getArgumentTypes()) {
+                    buffer.putInt(pool.get(argumentType));
+                }
+            }
+        }
+        writeIndex(buffer, types, indexSlots, false);
+        writeIndex(buffer, types, indexSlots, true);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Writes a hash table of type indexes keyed by either their obfuscated or mapped name, the first type with a given name wins.
+     */
+    private static void writeIndex(ByteBuffer buffer, List<AtlasType> types, int slotCount, boolean mapped) {
+        int[] hashes = new int[slotCount];
+        int[] entries = new int[slotCount];
+        Set<String> seen = Sets.newHashSet();
+        for (int i = 0; i < types.size(); i++) {
+            String name = mapped ? types.get(i).getMappedName() : types.get(i).getObfuscatedName();
+            if (!seen.add(name)) {
+                continue;
+            }
+            int hash = name.hashCode();
+            int slot = indexSlot(hash, slotCount - 1);
+            while (entries[slot] != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            hashes[slot] = hash;
+            entries[slot] = i + 1;
+        }
+        buffer.putInt(slotCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            buffer.putInt(hashes[slot]).putInt(entries[slot]);
+        }
+    }
+
+    /**
+     * Adds the given type and its children to the list in the order they're written, parents first.
+     */
+    private static void flatten(AtlasType type, int parent, List<AtlasType> types, List<Integer> parents) {
+        int index = types.size();
+        types.add(type);
+        parents.add(parent);
+        for (AtlasType child : type.getChildren()) {
+            flatten(child, index, types, parents);
+        }
+    }
+
+    /**
+     * Assigns indexes to strings in the order they're first seen and keeps their encoded form for writing.
+     */
+    private static class StringPool {
+        private final Map<String, Integer> indexes = Maps.newHashMap();
+        private final List<byte[]> encoded = Lists.newArrayList();
+        private int dataLength;
+
+        private int add(String string) {
+            if (string == null) {
+                return NONE;
+            }
+            Integer index = this.indexes.get(string);
+            if (index == null) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                index = this.encoded.size();
+                this.indexes.put(string, index);
+                this.encoded.add(bytes);
+                this.dataLength += bytes.length;
+            }
+            return index;
+        }
+
+        private int get(String string) {
+            return string == null ? NONE : this.indexes.get(string);
+        }
+
+        private int size() {
+            return this.encoded.size();
+        }
+
+        private void write(ByteBuffer buffer) {
+            int offset = 0;
+            for (byte[] bytes : this.encoded) {
+                buffer.putInt(offset);
+                offset += bytes.length;
+            }
+            buffer.putInt(offset);
+            for (byte[] bytes : this.encoded) {
+                buffer.put(bytes);
+            }
+        }
+    }
+
+}
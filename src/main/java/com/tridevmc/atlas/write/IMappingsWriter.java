@@ -0,0 +1,48 @@
+package com.tridevmc.atlas.write;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Interface that defines an object as a mappings writer, the counterpart of {@link com.tridevmc.atlas.read.IMappingsReader}.
+ * <p>
+ * The writer must be constructed with the mappings it writes.
+ */
+public interface IMappingsWriter {
+
+    /**
+     * Writes the mappings to the given channel, the channel is not closed.
+     *
+     * @param channel the channel to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(WritableByteChannel channel) throws IOException;
+
+    /**
+     * Writes the mappings to the given file, replacing any existing content.
+     *
+     * @param path the file to write to.
+     * @throws IOException if writing fails.
+     */
+    default void write(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            this.write(channel);
+        }
+    }
+
+    /**
+     * Writes the mappings to the given stream, the stream is not closed.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if writing fails.
+     */
+    default void write(OutputStream out) throws IOException {
+        this.write(Channels.newChannel(out));
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.tridevmc.atlas.write;
+
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+
+import java.util.List;
+
+/**
+ * Writes mappings in the ProGuard format used by Mojang, which {@link com.tridevmc.atlas.read.MojangMappingsReader} reads back.
+ * <p>
+ * Method line numbers aren't stored by AtlasMappings so they're left out. Fields without a known type, such as those read from SRG mappings,
+ * are written as {@code java.lang.Object} as the format requires one.
+ */
+public class MojangMappingsWriter extends TextMappingsWriter {
+
+    public MojangMappingsWriter(AtlasMappings mappings) {
+        super(mappings);
+    }
+
+    @Override
+    protected void format(AtlasType type, StringBuilder out) {
+        appendName(out, type.getMappedName()).append(" -> ");
+        appendName(out, type.getObfuscatedName()).append(":\n");
+        for (AtlasField field : type.getFields()) {
+            String fieldType = field.getType();
+            appendName(out.append("    "), fieldType == null || fieldType.isEmpty() ? "java/lang/Object" : fieldType).append(' ');
+            out.append(field.getMappedName()).append(" -> ").append(field.getObfuscatedName()).append('\n');
+        }
+        for (AtlasMethod method : type.getMethods()) {
+            String returnType = method.getReturnType();
+            appendName(out.append("    "), returnType == null ? "void" : returnType).append(' ');
+            out.append(method.getMappedName()).append('(');
+            List<String> argumentTypes = method.getArgumentTypes();
+            for (int i = 0; i < argumentTypes.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendName(out, argumentTypes.get(i));
+            }
+            out.append(") -> ").append(method.getObfuscatedName()).append('\n');
+        }
+    }
+
+    /**
+     * Appends a name with its slashes replaced by dots.
+     */
+    private static StringBuilder appendName(StringBuilder out, String name) {
+        int start = out.length();
+        out.append(name);
+        for (int i = start; i < out.length(); i++) {
+            if (out.charAt(i) == '/') {
+                out.setCharAt(i, '.');
+            }
+        }
+        return out;
+    }
+
+}
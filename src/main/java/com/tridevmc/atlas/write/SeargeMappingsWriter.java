@@ -0,0 +1,31 @@
+package com.tridevmc.atlas.write;
+
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+
+/**
+ * Writes mappings in the tab indented SRG format read by {@link com.tridevmc.atlas.read.SeargeMappingsReader}.
+ * <p>
+ * Methods are written with their obfuscated descriptors, the format has no place for field types so they're left out.
+ */
+public class SeargeMappingsWriter extends TextMappingsWriter {
+
+    public SeargeMappingsWriter(AtlasMappings mappings) {
+        super(mappings);
+    }
+
+    @Override
+    protected void format(AtlasType type, StringBuilder out) {
+        out.append(type.getObfuscatedName()).append(' ').append(type.getMappedName()).append('\n');
+        for (AtlasField field : type.getFields()) {
+            out.append('\t').append(field.getObfuscatedName()).append(' ').append(field.getMappedName()).append('\n');
+        }
+        for (AtlasMethod method : type.getMethods()) {
+            out.append('\t').append(method.getObfuscatedName()).append(' ').append(method.getObfuscatedDescriptor())
+                    .append(' ').append(method.getMappedName()).append('\n');
+        }
+    }
+
+}
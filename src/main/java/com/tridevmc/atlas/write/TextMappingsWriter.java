@@ -0,0 +1,102 @@
+package com.tridevmc.atlas.write;
+
+import com.google.common.collect.Lists;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Base for writers of line based mapping formats where each type is written as a block of lines, nested types follow their parents.
+ * <p>
+ * Types are formatted in batches, each batch is formatted in parallel and then written in order, so the output is the same regardless of how
+ * many threads were used and only one batch is held in memory at a time.
+ */
+public abstract class TextMappingsWriter implements IMappingsWriter {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    protected final AtlasMappings mappings;
+    private boolean parallel = true;
+
+    protected TextMappingsWriter(AtlasMappings mappings) {
+        this.mappings = mappings;
+    }
+
+    /**
+     * Sets whether types are formatted in parallel, enabled by default.
+     *
+     * @param parallel true to format types in parallel, false to format them on the writing thread.
+     * @return this writer.
+     */
+    public TextMappingsWriter setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Formats the block of lines for a single type, not including its children.
+     *
+     * @param type the type to format.
+     * @param out  the builder to append the lines to, each line must end with a line feed.
+     */
+    protected abstract void format(AtlasType type, StringBuilder out);
+
+    @Override
+    public void write(WritableByteChannel channel) throws IOException {
+        List<AtlasType> types = Lists.newArrayList();
+        this.mappings.getTypes().forEach(t -> flatten(t, types));
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        for (int start = 0; start < types.size(); start += BATCH_SIZE) {
+            List<AtlasType> batch = types.subList(start, Math.min(types.size(), start + BATCH_SIZE));
+            Stream<AtlasType> stream = this.parallel ? batch.parallelStream() : batch.stream();
+            // Collecting an ordered stream keeps the batch in order however it was split.
+            List<byte[]> blocks = stream.map(this::encode).collect(Collectors.toList());
+            for (byte[] block : blocks) {
+                if (block.length > buffer.remaining()) {
+                    flush(buffer, channel);
+                }
+                if (block.length > buffer.capacity()) {
+                    drain(ByteBuffer.wrap(block), channel);
+                } else {
+                    buffer.put(block);
+                }
+            }
+        }
+        flush(buffer, channel);
+    }
+
+    private byte[] encode(AtlasType type) {
+        StringBuilder out = new StringBuilder(256);
+        this.format(type, out);
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void flatten(AtlasType type, List<AtlasType> types) {
+        types.add(type);
+        for (AtlasType child : type.getChildren()) {
+            flatten(child, types);
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        drain(buffer, channel);
+        buffer.clear();
+    }
+
+    private static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.Lists;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares mappings built lazily with mappings that computed their descriptors and member indexes up front.
+ */
+public class AtlasMappingsTest {
+
+    private static AtlasMappings build(boolean eager, boolean parallel) {
+        AtlasMappings.Builder builder = MappingsFixtures.builder();
+        return eager ? builder.build(parallel) : builder.build();
+    }
+
+    @Test
+    public void lazyAndEagerMappingsMatch() {
+        List<String> expected = MappingsFixtures.dump(build(true, false));
+        assertEquals(expected, MappingsFixtures.dump(build(true, true)));
+        assertEquals(expected, MappingsFixtures.dump(build(false, false)));
+
+        AtlasMappings lazy = build(false, false);
+        AtlasType deeper = lazy.findType("com/example/Foo$Inner$Deeper", true);
+        assertEquals("a", deeper.findMethod("owner", "([[J)Lcom/example/Foo$Inner;", true).getObfuscatedName());
+        assertEquals("owner", deeper.findMethod("a", "([[J)La$a;", false).getMappedName());
+        assertNull(deeper.findMethod("a", "([[J)Lcom/example/Foo$Inner;", false));
+    }
+
+    @Test
+    public void lazyMembersCanBeIndexedFromManyThreads() throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int attempt = 0; attempt < 20; attempt++) {
+                AtlasMappings lazy = build(false, false);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<AtlasMethod>> lookups = Lists.newArrayList();
+                for (int i = 0; i < 4; i++) {
+                    lookups.add(pool.submit(() -> {
+                        start.await();
+                        return lazy.findType("a", false).findMethod("b", "(I[La;)Lb;", false);
+                    }));
+                }
+                start.countDown();
+                // Racing threads may each build the index, but they must all find the same method.
+                AtlasMethod expected = lazy.findType("a", false).getMethods().get(1);
+                for (Future<AtlasMethod> lookup : lookups) {
+                    assertSame(expected, lookup.get());
+                }
+                assertEquals("(I[Lcom/example/Foo;)Lcom/example/Bar;", expected.getMappedDescriptor());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+import com.tridevmc.atlas.write.AtlasRemapper;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Remaps small jars built in memory, covering inherited members, cyclic hierarchies, reverse remapping and corrupt classes.
+ */
+public class AtlasRemapperTest {
+
+    /**
+     * Creates mappings for a parent and child class, a class using a member the child inherits, and two classes extending each other.
+     */
+    private static AtlasMappings mappings() {
+        return new AtlasMappings.Builder("remap", "2020-01-01")
+                .addType(new AtlasType.Builder("a", "pkg/Parent")
+                        .addMember(new AtlasField.Builder("a", "count", "int"))
+                        .addMember(new AtlasMethod.Builder("a", "foo", "void", ImmutableList.of())))
+                .addType(new AtlasType.Builder("b", "pkg/Child"))
+                .addType(new AtlasType.Builder("c", "pkg/User")
+                        .addMember(new AtlasMethod.Builder("a", "use", "void", ImmutableList.of("b"))))
+                .addType(new AtlasType.Builder("d", "pkg/CycleA")
+                        .addMember(new AtlasMethod.Builder("a", "cycle", "void", ImmutableList.of())))
+                .addType(new AtlasType.Builder("e", "pkg/CycleB"))
+                .build();
+    }
+
+    private static byte[] createClass(String name, String superName, String... methods) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, superName, null);
+        for (String method : methods) {
+            MethodVisitor visitor = writer.visitMethod(Opcodes.ACC_PUBLIC, method, "()V", null, null);
+            visitor.visitCode();
+            visitor.visitInsn(Opcodes.RETURN);
+            visitor.visitMaxs(0, 0);
+            visitor.visitEnd();
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Creates the user class, its method reads the field and calls the method the child inherits from its parent.
+     */
+    private static byte[] createUser(String name, String child, String method, String field) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        MethodVisitor visitor = writer.visitMethod(Opcodes.ACC_PUBLIC, "a", "(L" + child + ";)V", null, null);
+        visitor.visitCode();
+        visitor.visitVarInsn(Opcodes.ALOAD, 1);
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, child, method, "()V", false);
+        visitor.visitVarInsn(Opcodes.ALOAD, 1);
+        visitor.visitFieldInsn(Opcodes.GETFIELD, child, field, "I");
+        visitor.visitInsn(Opcodes.POP);
+        visitor.visitInsn(Opcodes.RETURN);
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Creates the obfuscated jar, with a manifest, a resource and a class that has no mappings mixed in with the classes that are remapped.
+     */
+    private static Map<String, byte[]> obfuscatedEntries() {
+        Map<String, byte[]> entries = Maps.newLinkedHashMap();
+        entries.put("META-INF/MANIFEST.MF", ("Manifest-Version: 1.0\r\n\r\nName: a.class\r\nSHA-256-Digest: AAAA\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        entries.put("a.class", createClass("a", "java/lang/Object", "a"));
+        entries.put("b.class", createClass("b", "a"));
+        entries.put("data.txt", "resource".getBytes(StandardCharsets.UTF_8));
+        entries.put("c.class", createUser("c", "b", "a", "a"));
+        entries.put("d.class", createClass("d", "e", "a"));
+        entries.put("e.class", createClass("e", "d"));
+        entries.put("z.class", createClass("z", "java/lang/Object", "a"));
+        return entries;
+    }
+
+    private static byte[] jar(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static Map<String, byte[]> entries(byte[] jar) throws IOException {
+        Map<String, byte[]> entries = Maps.newLinkedHashMap();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(jar))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), ByteStreams.toByteArray(zip));
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] remap(AtlasRemapper remapper) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        remapper.remap(out);
+        return out.toByteArray();
+    }
+
+    private static ClassNode read(byte[] data) {
+        ClassNode node = new ClassNode();
+        new ClassReader(data).accept(node, 0);
+        return node;
+    }
+
+    private static List<String> references(ClassNode node) {
+        List<String> references = Lists.newArrayList();
+        for (MethodNode method : node.methods) {
+            for (AbstractInsnNode instruction : method.instructions.toArray()) {
+                if (instruction instanceof MethodInsnNode) {
+                    MethodInsnNode call = (MethodInsnNode) instruction;
+                    references.add(call.owner + "." + call.name + call.desc);
+                } else if (instruction instanceof FieldInsnNode) {
+                    FieldInsnNode field = (FieldInsnNode) instruction;
+                    references.add(field.owner + "." + field.name + ":" + field.desc);
+                }
+            }
+        }
+        return references;
+    }
+
+    @Test
+    public void remapsInheritedMembersInOrder() throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // A window smaller than the number of entries, so entries are written while later ones are still being remapped.
+            byte[] remapped = remap(new AtlasRemapper(mappings(), new ByteArrayInputStream(jar(obfuscatedEntries())), pool).setMaxPendingEntries(2));
+            Map<String, byte[]> entries = entries(remapped);
+            assertEquals(Arrays.asList("META-INF/MANIFEST.MF", "pkg/Parent.class", "pkg/Child.class", "data.txt", "pkg/User.class",
+                    "pkg/CycleA.class", "pkg/CycleB.class", "z.class"), Lists.newArrayList(entries.keySet()));
+
+            ClassNode user = read(entries.get("pkg/User.class"));
+            assertEquals("use", user.methods.get(0).name);
+            assertEquals("(Lpkg/Child;)V", user.methods.get(0).desc);
+            assertEquals(Arrays.asList("pkg/Child.foo()V", "pkg/Child.count:I"), references(user));
+            assertEquals("pkg/Parent", read(entries.get("pkg/Child.class")).superName);
+            assertEquals("User.java", user.sourceFile);
+
+            // The cycle doesn't hang the remap, each class still has its own members remapped.
+            ClassNode cycleA = read(entries.get("pkg/CycleA.class"));
+            assertEquals("pkg/CycleB", cycleA.superName);
+            assertEquals("cycle", cycleA.methods.get(0).name);
+            assertEquals("pkg/CycleA", read(entries.get("pkg/CycleB.class")).superName);
+
+            assertArrayEquals(obfuscatedEntries().get("z.class"), entries.get("z.class"));
+            assertArrayEquals(obfuscatedEntries().get("data.txt"), entries.get("data.txt"));
+            assertTrue(new Manifest(new ByteArrayInputStream(entries.get("META-INF/MANIFEST.MF"))).getEntries().isEmpty());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void reverseRemapRestoresObfuscatedNames() throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Path jar = Files.createTempFile("atlas", ".jar");
+        try {
+            Files.write(jar, remap(new AtlasRemapper(mappings(), new ByteArrayInputStream(jar(obfuscatedEntries())), pool)));
+            Map<String, byte[]> entries = entries(remap(new AtlasRemapper(mappings(), jar, pool).setReverse(true).setMaxPendingEntries(1)));
+            assertEquals(Arrays.asList("META-INF/MANIFEST.MF", "a.class", "b.class", "data.txt", "c.class", "d.class", "e.class", "z.class"),
+                    Lists.newArrayList(entries.keySet()));
+
+            ClassNode user = read(entries.get("c.class"));
+            assertEquals("a", user.methods.get(0).name);
+            assertEquals("(Lb;)V", user.methods.get(0).desc);
+            assertEquals(Arrays.asList("b.a()V", "b.a:I"), references(user));
+            assertEquals("a", read(entries.get("b.class")).superName);
+            assertEquals("a", read(entries.get("d.class")).methods.get(0).name);
+        } finally {
+            Files.delete(jar);
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void corruptClassesFailTheRemap() throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // Garbage fails as soon as its header is read, a truncated class keeps its header but not its methods.
+            Map<String, byte[]> garbage = obfuscatedEntries();
+            garbage.put("b.class", new byte[]{(byte) 0xCA, (byte) 0xFE, 0, 1, 2});
+            Map<String, byte[]> truncated = obfuscatedEntries();
+            byte[] user = truncated.get("c.class");
+            truncated.put("c.class", Arrays.copyOf(user, user.length - 12));
+
+            for (Map<String, byte[]> entries : ImmutableList.of(garbage, truncated)) {
+                byte[] corrupt = jar(entries);
+                assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                    assertThrows(RuntimeException.class, () -> remap(new AtlasRemapper(mappings(), new ByteArrayInputStream(corrupt), pool).setMaxPendingEntries(2)));
+                });
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+}
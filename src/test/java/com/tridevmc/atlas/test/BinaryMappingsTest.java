@@ -0,0 +1,130 @@
+package com.tridevmc.atlas.test;
+
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.SymbolTable;
+import com.tridevmc.atlas.read.BinaryMappingsFormat;
+import com.tridevmc.atlas.read.BinaryMappingsReader;
+import com.tridevmc.atlas.read.IndexedAtlasMappings;
+import com.tridevmc.atlas.write.BinaryMappingsWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryMappingsTest {
+
+    @Test
+    public void roundTripThroughBuffer() {
+        AtlasMappings mappings = MappingsFixtures.create();
+        AtlasMappings read = new BinaryMappingsReader(new BinaryMappingsWriter(mappings).toBuffer()).read();
+        assertEquals(mappings.getName(), read.getName());
+        assertEquals(mappings.getDateGenerated(), read.getDateGenerated());
+        assertEquals(MappingsFixtures.dump(mappings), MappingsFixtures.dump(read));
+    }
+
+    @Test
+    public void roundTripThroughFile() throws IOException {
+        AtlasMappings mappings = MappingsFixtures.create();
+        Path file = Files.createTempFile("atlas", ".bin");
+        try {
+            new BinaryMappingsWriter(mappings).write(file);
+            assertEquals(MappingsFixtures.dump(mappings), MappingsFixtures.dump(new BinaryMappingsReader(file).read()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void readsFromBufferPosition() {
+        AtlasMappings mappings = MappingsFixtures.create();
+        ByteBuffer data = new BinaryMappingsWriter(mappings).toBuffer();
+        ByteBuffer buffer = ByteBuffer.allocate(data.remaining() + 7);
+        buffer.position(7);
+        buffer.put(data);
+        buffer.position(7);
+        assertEquals(MappingsFixtures.dump(mappings), MappingsFixtures.dump(new BinaryMappingsReader(buffer).read()));
+        assertEquals(7, buffer.position());
+    }
+
+    @Test
+    public void rejectsTruncatedMappings() {
+        ByteBuffer data = new BinaryMappingsWriter(MappingsFixtures.create()).toBuffer();
+        data.limit(data.limit() - 1);
+        assertThrows(RuntimeException.class, () -> new BinaryMappingsReader(data).read());
+    }
+
+    @Test
+    public void rejectsCorruptCounts() {
+        ByteBuffer data = new BinaryMappingsWriter(MappingsFixtures.create()).toBuffer();
+        // The type count, a count that runs past the end must be caught before any record is read.
+        data.putInt(24, Integer.MAX_VALUE);
+        RuntimeException e = assertThrows(RuntimeException.class, () -> new BinaryMappingsReader(data).read());
+        assertTrue(e.getMessage().contains("truncated"), e.getMessage());
+    }
+
+    private static final int HEADER = 0, STRINGS = 1, TYPES = 2, FIELDS = 3, METHODS = 4;
+
+    /**
+     * Gets the offsets of the header, string offsets, types, fields and methods sections, see {@link BinaryMappingsFormat}.
+     */
+    private static int[] sections(ByteBuffer data) {
+        int strings = BinaryMappingsFormat.HEADER_SIZE;
+        int types = strings + (data.getInt(16) + 1) * Integer.BYTES + data.getInt(20);
+        int fields = types + data.getInt(24) * BinaryMappingsFormat.TYPE_RECORD_SIZE;
+        int methods = fields + data.getInt(28) * BinaryMappingsFormat.FIELD_RECORD_SIZE;
+        return new int[]{0, strings, types, fields, methods};
+    }
+
+    /**
+     * Writes the fixture mappings and overwrites the int at the given offset from the start of a section.
+     */
+    private static ByteBuffer corrupt(int section, int offset, int value) {
+        ByteBuffer data = new BinaryMappingsWriter(MappingsFixtures.create()).toBuffer();
+        data.putInt(sections(data)[section] + offset, value);
+        return data;
+    }
+
+    private static void assertInvalid(ByteBuffer data) {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> new BinaryMappingsReader(data).read());
+        assertTrue(e.getMessage().startsWith("Invalid binary mappings"), e.getMessage());
+        // The indexed mappings read the same records lazily, so every type is created to reach the corrupt one.
+        RuntimeException indexed = assertThrows(RuntimeException.class, () -> MappingsFixtures.dump(new IndexedAtlasMappings(data, new SymbolTable())));
+        String message = indexed.getCause() != null ? indexed.getCause().getMessage() : indexed.getMessage();
+        assertTrue(message.startsWith("Invalid binary mappings"), message);
+    }
+
+    @Test
+    public void rejectsCorruptRecords() {
+        ByteBuffer data = new BinaryMappingsWriter(MappingsFixtures.create()).toBuffer();
+        int stringCount = data.getInt(16);
+        int fieldCount = data.getInt(28);
+
+        // Strings referred to by the header and by a type, and the offsets of a string.
+        assertInvalid(corrupt(HEADER, 8, stringCount));
+        assertInvalid(corrupt(TYPES, 0, stringCount));
+        assertInvalid(corrupt(TYPES, 4, -2));
+        assertInvalid(corrupt(STRINGS, Integer.BYTES, data.getInt(20) + 1));
+        // The parent of the first nested type, which must be stored before it.
+        assertEquals(0, data.getInt(sections(data)[TYPES] + BinaryMappingsFormat.TYPE_RECORD_SIZE + 8));
+        assertInvalid(corrupt(TYPES, BinaryMappingsFormat.TYPE_RECORD_SIZE + 8, 1));
+        assertInvalid(corrupt(TYPES, BinaryMappingsFormat.TYPE_RECORD_SIZE + 8, 5));
+        // Field, method and argument ranges.
+        assertInvalid(corrupt(TYPES, 16, fieldCount + 1));
+        assertInvalid(corrupt(TYPES, 12, -1));
+        assertInvalid(corrupt(TYPES, 24, Integer.MAX_VALUE));
+        assertInvalid(corrupt(METHODS, 12, -2));
+        // A field's type and a method's descriptor.
+        assertInvalid(corrupt(FIELDS, 8, stringCount + 7));
+        assertInvalid(corrupt(METHODS, 20, stringCount));
+    }
+
+    @Test
+    public void rejectsOtherData() {
+        assertThrows(RuntimeException.class, () -> new BinaryMappingsReader(ByteBuffer.wrap(new byte[64])).read());
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableTable;
+import com.tridevmc.atlas.analysis.CoverageAnalyzer;
+import com.tridevmc.atlas.analysis.CoverageReport;
+import com.tridevmc.atlas.analysis.CoverageReport.Kind;
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks a small jar built in memory against mappings that are missing some of its members and have some it no longer contains.
+ */
+public class CoverageAnalyzerTest {
+
+    private static AtlasMappings mappings() {
+        return new AtlasMappings.Builder("coverage", "2020-01-01")
+                .addType(new AtlasType.Builder("x/a", "com/example/Foo")
+                        .addMember(new AtlasField.Builder("a", "count", "int"))
+                        .addMember(new AtlasField.Builder("c", "removed", "java/lang/String"))
+                        .addMember(new AtlasMethod.Builder("a", "run", "void", ImmutableList.of()))
+                        .addMember(new AtlasMethod.Builder("b", "take", "void", ImmutableList.of("int"))))
+                .addType(new AtlasType.Builder("x/b", "com/example/Bar"))
+                .addType(new AtlasType.Builder("x/c", "com/example/Removed"))
+                .build();
+    }
+
+    private static void method(ClassWriter writer, int access, String name, String descriptor) {
+        MethodVisitor visitor = writer.visitMethod(access, name, descriptor, null, null);
+        visitor.visitCode();
+        visitor.visitInsn(Opcodes.RETURN);
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+    }
+
+    private static byte[] createClass(String name, boolean members) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        // Constructors and static initializers are left out of the mappings, as SRG does.
+        method(writer, Opcodes.ACC_PUBLIC, "<init>", "()V");
+        if (members) {
+            method(writer, Opcodes.ACC_STATIC, "<clinit>", "()V");
+            writer.visitField(Opcodes.ACC_PRIVATE, "a", "I", null, null).visitEnd();
+            writer.visitField(Opcodes.ACC_PRIVATE, "b", "J", null, null).visitEnd();
+            method(writer, Opcodes.ACC_PUBLIC, "a", "()V");
+            method(writer, Opcodes.ACC_PUBLIC, "b", "(J)V");
+            method(writer, Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC, "access$000", "()V");
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Creates a record, record components are only visited by visitors using ASM 8 or later.
+     */
+    private static byte[] createRecord(String name) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V14, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_RECORD, name, null, "java/lang/Record", null);
+        writer.visitRecordComponent("value", "I", null).visitEnd();
+        writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "value", "I", null, null).visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void writeJar(Path file) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file))) {
+            write(out, "x/a.class", createClass("x/a", true));
+            write(out, "x/b.class", createClass("x/b", false));
+            write(out, "x/d.class", createClass("x/d", false));
+            write(out, "y/r.class", createRecord("y/r"));
+        }
+    }
+
+    private static void write(ZipOutputStream out, String name, byte[] data) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(data);
+        out.closeEntry();
+    }
+
+    @Test
+    public void countsEntriesPerPackage() throws IOException {
+        Path jar = Files.createTempFile("atlas", ".jar");
+        try {
+            writeJar(jar);
+            CoverageReport report = new CoverageAnalyzer(mappings()).analyze(jar);
+            assertEquals(4, report.getClassCount());
+            assertFalse(report.isClean());
+            assertEquals(ImmutableList.of(
+                    "UNMAPPED x/a.b J",
+                    "DESCRIPTOR_MISMATCH x/a.b (J)V expected (I)V",
+                    "STALE x/a.c Ljava/lang/String;",
+                    "UNMAPPED x/d",
+                    "UNMAPPED y/r",
+                    "STALE x/c"), report.getEntries().stream().map(CoverageAnalyzerTest::describe).collect(Collectors.toList()));
+
+            ImmutableTable<String, Kind, Integer> counts = report.getPackageCounts();
+            assertEquals(2, (int) counts.get("x", Kind.UNMAPPED));
+            assertEquals(2, (int) counts.get("x", Kind.STALE));
+            assertEquals(1, (int) counts.get("x", Kind.DESCRIPTOR_MISMATCH));
+            assertEquals(1, (int) counts.get("y", Kind.UNMAPPED));
+            assertEquals(4, counts.size());
+            assertEquals(3, report.count(Kind.UNMAPPED));
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+    @Test
+    public void reportsSyntheticMembersWhenAsked() throws IOException {
+        Path jar = Files.createTempFile("atlas", ".jar");
+        try {
+            writeJar(jar);
+            CoverageReport report = new CoverageAnalyzer(mappings()).setIncludeSynthetic(true).analyze(jar);
+            assertTrue(report.getEntries().stream().anyMatch(entry -> "access$000".equals(entry.getName())));
+            // Initializers still aren't reported, they're never renamed.
+            assertTrue(report.getEntries().stream().noneMatch(entry -> entry.getName() != null && entry.getName().startsWith("<")));
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+    private static String describe(CoverageReport.Entry entry) {
+        StringBuilder description = new StringBuilder(entry.getKind() + " " + entry.getOwner());
+        if (entry.getName() != null) {
+            description.append('.').append(entry.getName()).append(' ').append(entry.getDescriptor());
+        }
+        if (entry.getExpectedDescriptor() != null) {
+            description.append(" expected ").append(entry.getExpectedDescriptor());
+        }
+        return description.toString();
+    }
+
+}
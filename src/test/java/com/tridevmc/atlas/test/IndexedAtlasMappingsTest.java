@@ -0,0 +1,96 @@
+package com.tridevmc.atlas.test;
+
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasType;
+import com.tridevmc.atlas.mappings.SymbolTable;
+import com.tridevmc.atlas.read.IndexedAtlasMappings;
+import com.tridevmc.atlas.write.BinaryMappingsWriter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexedAtlasMappingsTest {
+
+    private static IndexedAtlasMappings indexed(AtlasMappings mappings) {
+        return new IndexedAtlasMappings(new BinaryMappingsWriter(mappings).toBuffer(), new SymbolTable());
+    }
+
+    @Test
+    public void findsTypesByObfuscatedName() {
+        IndexedAtlasMappings mappings = indexed(MappingsFixtures.create());
+        assertEquals("com/example/Foo", mappings.findType("a", false).getMappedName());
+        assertEquals("com/example/Foo$Inner$Deeper", mappings.findType("a$a$a", false).getMappedName());
+        assertEquals("com/example/Straße", mappings.findType("c", false).getMappedName());
+        assertNull(mappings.findType("d", false));
+        assertNull(mappings.findType("com/example/Foo", false));
+    }
+
+    @Test
+    public void findsTypesByMappedName() {
+        IndexedAtlasMappings mappings = indexed(MappingsFixtures.create());
+        assertEquals("b", mappings.findType("com/example/Bar", true).getObfuscatedName());
+        assertEquals("a$a", mappings.findType("com/example/Foo$Inner", true).getObfuscatedName());
+        assertEquals("c", mappings.findType("com/example/Straße", true).getObfuscatedName());
+        assertNull(mappings.findType("com/example/Missing", true));
+        assertNull(mappings.findType("a", true));
+        assertNull(mappings.findType("", true));
+    }
+
+    @Test
+    public void translatesNamesWithoutCreatingTypes() {
+        IndexedAtlasMappings mappings = indexed(MappingsFixtures.create());
+        assertEquals("com/example/Foo$Inner", mappings.getTypeNameMapped("a$a"));
+        assertEquals("c", mappings.getTypeNameObfuscated("com/example/Straße"));
+        assertEquals("java/lang/String", mappings.getTypeNameMapped("java/lang/String"));
+        assertEquals("java/lang/String", mappings.getTypeNameObfuscated("java/lang/String"));
+        assertEquals(0, mappings.getMaterializedTypeCount());
+    }
+
+    @Test
+    public void createsWholeClassesOnDemand() {
+        IndexedAtlasMappings mappings = indexed(MappingsFixtures.create());
+        AtlasType inner = mappings.findType("a$a", false);
+        // Finding a nested type creates its top-level class along with every type nested in it.
+        assertEquals(3, mappings.getMaterializedTypeCount());
+        AtlasType foo = mappings.findType("com/example/Foo", true);
+        assertSame(inner, foo.getChildren().get(0));
+        assertSame(foo, mappings.findType("a", false));
+        assertEquals("(I[La;)Lb;", foo.findMethod("bar", "(I[Lcom/example/Foo;)Lcom/example/Bar;", true).getObfuscatedDescriptor());
+    }
+
+    @Test
+    public void matchesSourceMappings() {
+        AtlasMappings source = MappingsFixtures.create();
+        IndexedAtlasMappings mappings = indexed(source);
+        assertEquals(source.getName(), mappings.getName());
+        assertEquals(MappingsFixtures.dump(source), MappingsFixtures.dump(mappings));
+    }
+
+    @Test
+    public void findsEveryTypeInLargerMappings() {
+        // Enough types to make probes collide and wrap around the index.
+        AtlasMappings.Builder builder = new AtlasMappings.Builder("large", "2020-01-01");
+        for (int i = 0; i < 5000; i++) {
+            builder.addType(new AtlasType.Builder("o" + i, "m/Type" + i));
+        }
+        IndexedAtlasMappings mappings = indexed(builder.build());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals("m/Type" + i, mappings.getTypeNameMapped("o" + i));
+            assertEquals("o" + i, mappings.getTypeNameObfuscated("m/Type" + i));
+        }
+        assertNull(mappings.findType("o5000", false));
+        assertNull(mappings.findType("m/Type5000", true));
+    }
+
+    @Test
+    public void limitsRetainedTypes() {
+        assertThrows(IllegalArgumentException.class, () -> new IndexedAtlasMappings(new BinaryMappingsWriter(MappingsFixtures.create()).toBuffer(), -1));
+        assertThrows(IllegalArgumentException.class, () -> IndexedAtlasMappings.copyOf(MappingsFixtures.create(), Long.MIN_VALUE));
+
+        // Nothing is retained, but every type can still be looked up.
+        IndexedAtlasMappings mappings = IndexedAtlasMappings.copyOf(MappingsFixtures.create(), 0);
+        assertEquals(MappingsFixtures.dump(MappingsFixtures.create()), MappingsFixtures.dump(mappings));
+        assertEquals("com/example/Foo$Inner$Deeper", mappings.findType("a$a$a", false).getMappedName());
+    }
+
+}
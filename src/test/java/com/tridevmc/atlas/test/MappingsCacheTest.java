@@ -0,0 +1,125 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.hash.HashCode;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.read.BinaryMappingsReader;
+import com.tridevmc.atlas.read.MappingsCache;
+import com.tridevmc.atlas.write.BinaryMappingsWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Caches the fixture mappings in memory and as snapshots in a temporary directory.
+ */
+public class MappingsCacheTest {
+
+    private static final HashCode FIRST = HashCode.fromInt(1);
+    private static final HashCode SECOND = HashCode.fromInt(2);
+
+    private static Supplier<AtlasMappings> counting(AtomicInteger reads) {
+        return () -> {
+            reads.incrementAndGet();
+            return MappingsFixtures.create();
+        };
+    }
+
+    private static Supplier<AtlasMappings> failing() {
+        return () -> {
+            throw new AssertionError("The mappings should have been cached");
+        };
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void holdsMappingsInMemory() {
+        MappingsCache cache = new MappingsCache(1);
+        AtomicInteger reads = new AtomicInteger();
+        AtlasMappings mappings = cache.get(FIRST, counting(reads));
+        assertSame(mappings, cache.get(FIRST, failing()));
+
+        // Only one mappings fits, so the first is read again once the second has been cached.
+        cache.get(SECOND, counting(reads));
+        assertNotSame(mappings, cache.get(FIRST, counting(reads)));
+        assertEquals(3, reads.get());
+    }
+
+    @Test
+    public void reloadsSnapshots() throws IOException {
+        Path directory = Files.createTempDirectory("atlas");
+        try {
+            new MappingsCache(1, directory, Long.MAX_VALUE).get(FIRST, MappingsFixtures::create);
+            assertTrue(Files.isRegularFile(directory.resolve(FIRST + ".atlas")));
+
+            AtlasMappings mappings = new MappingsCache(1, directory, Long.MAX_VALUE).get(FIRST, failing());
+            assertEquals(MappingsFixtures.dump(MappingsFixtures.create()), MappingsFixtures.dump(mappings));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    public void replacesCorruptSnapshots() throws IOException {
+        Path directory = Files.createTempDirectory("atlas");
+        try {
+            Path snapshot = directory.resolve(FIRST + ".atlas");
+            byte[] valid = new byte[new BinaryMappingsWriter(MappingsFixtures.create()).toBuffer().remaining()];
+            Files.write(snapshot, valid);
+
+            AtomicInteger reads = new AtomicInteger();
+            AtlasMappings mappings = new MappingsCache(1, directory, Long.MAX_VALUE).get(FIRST, counting(reads));
+            assertEquals(1, reads.get());
+            assertEquals(MappingsFixtures.dump(MappingsFixtures.create()), MappingsFixtures.dump(mappings));
+            assertEquals(MappingsFixtures.dump(mappings), MappingsFixtures.dump(new BinaryMappingsReader(snapshot).read()));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedSnapshots() throws IOException {
+        Path directory = Files.createTempDirectory("atlas");
+        try {
+            // Room for one snapshot but not two.
+            long size = new BinaryMappingsWriter(MappingsFixtures.create()).toBuffer().remaining();
+            MappingsCache cache = new MappingsCache(1, directory, size * 3 / 2);
+            cache.get(FIRST, MappingsFixtures::create);
+            Path first = directory.resolve(FIRST + ".atlas");
+            assertEquals(size, Files.size(first));
+            Files.setLastModifiedTime(first, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+
+            cache.get(SECOND, MappingsFixtures::create);
+            assertFalse(Files.exists(first));
+            assertTrue(Files.exists(directory.resolve(SECOND + ".atlas")));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    public void returnsMappingsWhenSnapshotsCantBeWritten() throws IOException {
+        // A file in place of the directory makes every snapshot write fail.
+        Path directory = Files.createTempFile("atlas", ".atlas");
+        try {
+            AtlasMappings mappings = new MappingsCache(1, directory, Long.MAX_VALUE).get(FIRST, MappingsFixtures::create);
+            assertEquals(MappingsFixtures.dump(MappingsFixtures.create()), MappingsFixtures.dump(mappings));
+        } finally {
+            Files.delete(directory);
+        }
+    }
+
+}
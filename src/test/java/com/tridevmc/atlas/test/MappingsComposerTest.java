@@ -0,0 +1,78 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.ImmutableList;
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappingsComposerTest {
+
+    @Test
+    public void invertSwapsNamesAndConvertsTypes() {
+        AtlasMappings inverted = MappingsFixtures.create().invert();
+        AtlasType foo = inverted.findType("com/example/Foo", false);
+        assertEquals("a", foo.getMappedName());
+        assertEquals("com/example/Foo$Inner$Deeper", inverted.findType("a$a$a", true).getObfuscatedName());
+
+        AtlasField bar = foo.findField("bar", false);
+        assertEquals("b", bar.getMappedName());
+        assertEquals("b", bar.getType());
+        assertEquals("int", foo.findField("count", false).getType());
+
+        AtlasMethod method = foo.findMethod("bar", "(I[Lcom/example/Foo;)Lcom/example/Bar;", false);
+        assertEquals("b", method.getMappedName());
+        assertEquals("(I[La;)Lb;", method.getMappedDescriptor());
+        assertEquals("b", method.getReturnType());
+        assertEquals(ImmutableList.of("int", "a[]"), method.getArgumentTypes());
+        assertEquals("long[][]", inverted.findType("com/example/Foo$Inner$Deeper", false).getMethods().get(0).getArgumentTypes().get(0));
+    }
+
+    @Test
+    public void invertTwiceRestoresMappings() {
+        AtlasMappings mappings = MappingsFixtures.create();
+        assertEquals(MappingsFixtures.dump(mappings), MappingsFixtures.dump(mappings.invert().invert()));
+    }
+
+    @Test
+    public void composeChainsMappedNames() {
+        AtlasType.Builder foo = new AtlasType.Builder("com/example/Foo", "x/Foo")
+                .addMember(new AtlasField.Builder("count", "total", "int"))
+                .addMember(new AtlasMethod.Builder("bar", "fetch", "com/example/Bar", ImmutableList.of("int", "x/Foo[]")));
+        AtlasMappings second = new AtlasMappings.Builder("second", "2020-01-01").addType(foo).build();
+        AtlasMappings composed = MappingsFixtures.create().compose(second);
+
+        assertEquals("fixture+second", composed.getName());
+        AtlasType type = composed.findType("a", false);
+        assertEquals("x/Foo", type.getMappedName());
+        assertEquals("total", type.findField("a", false).getMappedName());
+        // Entries missing from the second mappings keep their names, and type references follow the second mappings.
+        assertEquals("bar", type.findField("b", false).getMappedName());
+        assertEquals("com/example/Foo$Inner", composed.getTypeNameMapped("a$a"));
+        AtlasMethod method = type.findMethod("b", "(I[La;)Lb;", false);
+        assertEquals("fetch", method.getMappedName());
+        assertEquals("(I[Lx/Foo;)Lcom/example/Bar;", method.getMappedDescriptor());
+        assertEquals(ImmutableList.of("int", "x/Foo[]"), method.getArgumentTypes());
+        assertEquals("run", type.findMethod("a", "()V", false).getMappedName());
+    }
+
+    @Test
+    public void composeWithInverseIsIdentity() {
+        AtlasMappings mappings = MappingsFixtures.create();
+        AtlasMappings identity = mappings.compose(mappings.invert());
+        for (AtlasType type : identity.getTypes()) {
+            assertEquals(type.getObfuscatedName(), type.getMappedName());
+            for (AtlasField field : type.getFields()) {
+                assertEquals(field.getObfuscatedName(), field.getMappedName());
+            }
+            for (AtlasMethod method : type.getMethods()) {
+                assertEquals(method.getObfuscatedName(), method.getMappedName());
+                assertEquals(method.getObfuscatedDescriptor(), method.getMappedDescriptor());
+            }
+        }
+    }
+
+}
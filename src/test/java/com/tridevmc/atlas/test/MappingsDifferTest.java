@@ -0,0 +1,168 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.tridevmc.atlas.diff.IMappingsDiffListener;
+import com.tridevmc.atlas.diff.MappingsDiffer;
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappingsDifferTest {
+
+    private static AtlasMappings from() {
+        AtlasType.Builder foo = new AtlasType.Builder("a", "com/example/Foo")
+                .addMember(new AtlasField.Builder("a", "count", "int"))
+                .addMember(new AtlasField.Builder("b", "bar", "com/example/Bar"))
+                .addMember(new AtlasField.Builder("c", "flag", "int"))
+                .addMember(new AtlasMethod.Builder("a", "run", "void", ImmutableList.of()))
+                .addMember(new AtlasMethod.Builder("b", "bar", "com/example/Bar", ImmutableList.of("int")))
+                .addMember(new AtlasMethod.Builder("c", "stop", "void", ImmutableList.of()))
+                .addMember(new AtlasMethod.Builder("d", "set", "void", ImmutableList.of("int")))
+                .addMember(new AtlasMethod.Builder("d", "set", "void", ImmutableList.of("long")));
+        return new AtlasMappings.Builder("from", "2020-01-01")
+                .addType(foo)
+                .addType(new AtlasType.Builder("b", "com/example/Bar"))
+                .addType(new AtlasType.Builder("c", "com/example/Removed"))
+                .build();
+    }
+
+    private static AtlasMappings to() {
+        AtlasType.Builder foo = new AtlasType.Builder("a", "com/example/Foo")
+                .addMember(new AtlasField.Builder("a", "size", "int"))
+                .addMember(new AtlasField.Builder("b", "bar", "com/example/Baz"))
+                .addMember(new AtlasField.Builder("c", "flag", "boolean"))
+                .addMember(new AtlasField.Builder("d", "added", "int"))
+                .addMember(new AtlasMethod.Builder("a", "execute", "void", ImmutableList.of()))
+                .addMember(new AtlasMethod.Builder("b", "bar", "com/example/Baz", ImmutableList.of("long")))
+                .addMember(new AtlasMethod.Builder("d", "set", "void", ImmutableList.of("float")))
+                .addMember(new AtlasMethod.Builder("d", "set", "void", ImmutableList.of("double")))
+                .addMember(new AtlasMethod.Builder("e", "start", "void", ImmutableList.of()));
+        return new AtlasMappings.Builder("to", "2020-01-02")
+                .addType(foo)
+                .addType(new AtlasType.Builder("b", "com/example/Baz"))
+                .addType(new AtlasType.Builder("d", "com/example/Added"))
+                .build();
+    }
+
+    private static Set<String> diff(AtlasMappings from, AtlasMappings to, boolean joinOnMappedNames) {
+        Set<String> differences = Collections.synchronizedSet(Sets.newHashSet());
+        new MappingsDiffer(from, to, joinOnMappedNames).diff(new IMappingsDiffListener() {
+            @Override
+            public void typeAdded(AtlasType type) {
+                differences.add("type added " + type.getMappedName());
+            }
+
+            @Override
+            public void typeRemoved(AtlasType type) {
+                differences.add("type removed " + type.getMappedName());
+            }
+
+            @Override
+            public void typeRenamed(AtlasType from, AtlasType to) {
+                differences.add("type renamed " + from.getMappedName() + " " + to.getMappedName());
+            }
+
+            @Override
+            public void fieldAdded(AtlasType owner, AtlasField field) {
+                differences.add("field added " + field.getMappedName());
+            }
+
+            @Override
+            public void fieldRemoved(AtlasType owner, AtlasField field) {
+                differences.add("field removed " + field.getMappedName());
+            }
+
+            @Override
+            public void fieldRenamed(AtlasType owner, AtlasField from, AtlasField to) {
+                differences.add("field renamed " + from.getMappedName() + " " + to.getMappedName());
+            }
+
+            @Override
+            public void fieldRetyped(AtlasType owner, AtlasField from, AtlasField to) {
+                differences.add("field retyped " + from.getMappedName() + " " + from.getType() + " " + to.getType());
+            }
+
+            @Override
+            public void methodAdded(AtlasType owner, AtlasMethod method) {
+                differences.add("method added " + method.getMappedName() + method.getMappedDescriptor());
+            }
+
+            @Override
+            public void methodRemoved(AtlasType owner, AtlasMethod method) {
+                differences.add("method removed " + method.getMappedName() + method.getMappedDescriptor());
+            }
+
+            @Override
+            public void methodRenamed(AtlasType owner, AtlasMethod from, AtlasMethod to) {
+                differences.add("method renamed " + from.getMappedName() + " " + to.getMappedName());
+            }
+
+            @Override
+            public void methodRetyped(AtlasType owner, AtlasMethod from, AtlasMethod to) {
+                differences.add("method retyped " + from.getMappedName() + from.getMappedDescriptor() + " " + to.getMappedDescriptor());
+            }
+        });
+        return differences;
+    }
+
+    @Test
+    public void reportsDifferencesByObfuscatedName() {
+        assertEquals(ImmutableSet.of(
+                "type added com/example/Added",
+                "type removed com/example/Removed",
+                "type renamed com/example/Bar com/example/Baz",
+                "field renamed count size",
+                "field retyped flag int boolean",
+                "field added added",
+                "method renamed run execute",
+                "method retyped bar(I)Lcom/example/Bar; (J)Lcom/example/Baz;",
+                "method removed stop()V",
+                "method added start()V",
+                // Overloads can't be paired up, so they're reported as removed and added rather than retyped.
+                "method removed set(I)V",
+                "method removed set(J)V",
+                "method added set(F)V",
+                "method added set(D)V"
+        ), diff(from(), to(), false));
+    }
+
+    @Test
+    public void reportsNothingForEqualMappings() {
+        assertTrue(diff(MappingsFixtures.create(), MappingsFixtures.create(), false).isEmpty());
+        assertTrue(diff(MappingsFixtures.create(), MappingsFixtures.create(), true).isEmpty());
+    }
+
+    @Test
+    public void joinsOnMappedNames() {
+        // Reassigned obfuscated names are renames when joined on mapped names.
+        AtlasMappings from = new AtlasMappings.Builder("from", "2020-01-01")
+                .addType(new AtlasType.Builder("a", "com/example/Foo")
+                        .addMember(new AtlasField.Builder("a", "count", "int"))
+                        .addMember(new AtlasMethod.Builder("a", "run", "void", ImmutableList.of("com/example/Foo"))))
+                .build();
+        AtlasMappings to = new AtlasMappings.Builder("to", "2020-01-02")
+                .addType(new AtlasType.Builder("z", "com/example/Foo")
+                        .addMember(new AtlasField.Builder("y", "count", "int"))
+                        .addMember(new AtlasMethod.Builder("x", "run", "void", ImmutableList.of("com/example/Foo"))))
+                .build();
+        assertEquals(ImmutableSet.of(
+                "type renamed com/example/Foo com/example/Foo",
+                "field renamed count count",
+                "method renamed run run"
+        ), diff(from, to, true));
+        assertEquals(ImmutableSet.of(
+                "type added com/example/Foo",
+                "type removed com/example/Foo"
+        ), diff(from, to, false));
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+
+import java.util.List;
+
+/**
+ * Small hand-written mappings shared by the offline tests, along with a way to compare mappings as plain text.
+ */
+final class MappingsFixtures {
+
+    private MappingsFixtures() {
+    }
+
+    /**
+     * Creates mappings with nested types, array and primitive member types, a reference between types and a non-ASCII name.
+     */
+    static AtlasMappings create() {
+        return builder().build();
+    }
+
+    /**
+     * Creates a builder for the fixture mappings, so they can be built either lazily or eagerly.
+     */
+    static AtlasMappings.Builder builder() {
+        AtlasType.Builder foo = new AtlasType.Builder("a", "com/example/Foo")
+                .addMember(new AtlasField.Builder("a", "count", "int"))
+                .addMember(new AtlasField.Builder("b", "bar", "com/example/Bar"))
+                .addMember(new AtlasMethod.Builder("a", "run", "void", ImmutableList.of()))
+                .addMember(new AtlasMethod.Builder("b", "bar", "com/example/Bar", ImmutableList.of("int", "com/example/Foo[]")));
+        AtlasType.Builder inner = new AtlasType.Builder("a$a", "com/example/Foo$Inner")
+                .addMember(new AtlasField.Builder("a", "name", "java/lang/String"))
+                .addMember(new AtlasMethod.Builder("a", "get", "java/lang/String", ImmutableList.of()));
+        AtlasType.Builder deeper = new AtlasType.Builder("a$a$a", "com/example/Foo$Inner$Deeper")
+                .addMember(new AtlasMethod.Builder("a", "owner", "com/example/Foo$Inner", ImmutableList.of("long[][]")));
+        foo.addChild(inner);
+        inner.addChild(deeper);
+        AtlasType.Builder bar = new AtlasType.Builder("b", "com/example/Bar")
+                .addMember(new AtlasMethod.Builder("a", "foo", "com/example/Foo", ImmutableList.of("java/lang/String")));
+        AtlasType.Builder street = new AtlasType.Builder("c", "com/example/Straße")
+                .addMember(new AtlasField.Builder("a", "grüße", "com/example/Straße"));
+        return new AtlasMappings.Builder("fixture", "2020-01-01")
+                .addType(foo)
+                .addType(bar)
+                .addType(street);
+    }
+
+    /**
+     * Lists every type and member of the given mappings with their names, types and descriptors in both directions, nested types follow their parents.
+     */
+    static List<String> dump(AtlasMappings mappings) {
+        List<String> lines = Lists.newArrayList();
+        mappings.getTypes().forEach(t -> dump(t, lines));
+        return lines;
+    }
+
+    private static void dump(AtlasType type, List<String> lines) {
+        lines.add(type.getObfuscatedName() + " -> " + type.getMappedName());
+        for (AtlasField field : type.getFields()) {
+            lines.add("    field " + field.getObfuscatedName() + " -> " + field.getMappedName() + " : " + field.getType());
+        }
+        for (AtlasMethod method : type.getMethods()) {
+            lines.add("    method " + method.getObfuscatedName() + method.getObfuscatedDescriptor() + " -> " + method.getMappedName() + method.getMappedDescriptor()
+                    + " : " + method.getReturnType() + method.getArgumentTypes());
+        }
+        type.getChildren().forEach(c -> dump(c, lines));
+    }
+
+}
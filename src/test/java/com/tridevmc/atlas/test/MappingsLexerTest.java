@@ -0,0 +1,141 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.tridevmc.atlas.read.MappingsLexer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappingsLexerTest {
+
+    private static MappingsLexer lexer(String text) {
+        return new MappingsLexer(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<String> lines(MappingsLexer lexer) {
+        List<String> lines = Lists.newArrayList();
+        while (lexer.nextLine()) {
+            lines.add(lexer.line());
+        }
+        return lines;
+    }
+
+    /**
+     * A channel that hands out at most a few bytes per read, so lines always span several reads.
+     */
+    private static ReadableByteChannel trickle(String text) {
+        ByteBuffer source = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) {
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(Math.min(7, dst.remaining()), source.remaining());
+                for (int i = 0; i < count; i++) {
+                    dst.put(source.get());
+                }
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Test
+    public void splitsLines() {
+        MappingsLexer lexer = lexer("first\r\n\nthird \t\n  \nlast");
+        assertEquals(Lists.newArrayList("first", "", "third \t", "  ", "last"), lines(lexer));
+        assertEquals(4, lexer.getLineNumber());
+        assertFalse(lexer.nextLine());
+        assertTrue(lines(lexer("")).isEmpty());
+        assertEquals(Lists.newArrayList("only"), lines(lexer("only\n")));
+    }
+
+    @Test
+    public void detectsBlankLines() {
+        MappingsLexer lexer = lexer(" \t \nx\n");
+        assertTrue(lexer.nextLine());
+        assertTrue(lexer.isBlank());
+        assertTrue(lexer.nextLine());
+        assertFalse(lexer.isBlank());
+    }
+
+    @Test
+    public void findsCharactersWithinTheLine() {
+        MappingsLexer lexer = lexer("skipped\n  a.b c -> d:e\nnext");
+        lexer.nextLine();
+        lexer.nextLine();
+        int start = lexer.getLineStart();
+        assertEquals(start + 2, lexer.skipWhitespace(start));
+        assertEquals(start + 5, lexer.indexOf(' ', start + 2));
+        assertEquals(start + 7, lexer.indexOf(" -> ", start));
+        assertEquals(-1, lexer.indexOf('x', start));
+        // Searches never leave the current line.
+        assertEquals(-1, lexer.indexOf('n', start));
+        assertEquals(start + 12, lexer.lastIndexOf(':', start));
+        assertEquals(start + 10, lexer.lastIndexOf(' ', start));
+        assertEquals(start + 5, lexer.lastIndexOf(' ', start, start + 7));
+        assertEquals(-1, lexer.lastIndexOf(' ', start + 11, lexer.getLineEnd()));
+        assertTrue(lexer.regionMatches(start + 7, " -> "));
+        assertFalse(lexer.regionMatches(lexer.getLineEnd() - 1, "ee"));
+        assertEquals('d', lexer.byteAt(start + 11));
+        assertEquals(0, lexer.byteAt(lexer.getLineEnd()));
+    }
+
+    @Test
+    public void trimsTokens() {
+        MappingsLexer lexer = lexer("name \t ");
+        lexer.nextLine();
+        int start = lexer.getLineStart();
+        assertEquals(start + 4, lexer.trimEnd(start, lexer.getLineEnd()));
+        assertEquals(start, lexer.trimEnd(start, start));
+    }
+
+    @Test
+    public void normalisesAndSharesNames() {
+        MappingsLexer lexer = lexer("com.example.Foo com/example/Foo com.example.Straße grüße");
+        lexer.nextLine();
+        int start = lexer.getLineStart();
+        String dotted = lexer.name(start, start + 15);
+        String slashed = lexer.name(start + 16, start + 31);
+        assertEquals("com/example/Foo", dotted);
+        assertSame(dotted, slashed);
+        int nonAscii = lexer.indexOf(' ', start + 32);
+        assertEquals("com/example/Straße", lexer.name(start + 32, nonAscii));
+        assertEquals("grüße", lexer.name(nonAscii + 1, lexer.getLineEnd()));
+        assertEquals("", lexer.name(start, start));
+    }
+
+    @Test
+    public void streamsFromChannel() {
+        // A line longer than the channel buffer forces it to grow.
+        String text = "a -> b:\r\n    int c -> d\n\n" + Strings.repeat("x", 100000) + "\nlast";
+        List<String> expected = lines(lexer(text));
+        MappingsLexer lexer = new MappingsLexer(trickle(text));
+        assertEquals(expected, lines(lexer));
+        assertEquals(4, lexer.getLineNumber());
+    }
+
+    @Test
+    public void readsFromBufferPosition() {
+        ByteBuffer buffer = ByteBuffer.wrap("skip\nkeep\n".getBytes(StandardCharsets.UTF_8));
+        buffer.position(5);
+        assertEquals(Lists.newArrayList("keep"), lines(new MappingsLexer(buffer)));
+        assertEquals(5, buffer.position());
+    }
+
+}
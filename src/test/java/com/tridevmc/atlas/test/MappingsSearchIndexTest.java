@@ -0,0 +1,109 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.ImmutableList;
+import com.tridevmc.atlas.mappings.AtlasField;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMember;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+import com.tridevmc.atlas.mappings.MappingsSearchIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Queries the fixture mappings, along with types in a nested package, a package sharing a prefix and the default package.
+ */
+public class MappingsSearchIndexTest {
+
+    private static MappingsSearchIndex index() {
+        AtlasMappings.Builder builder = new AtlasMappings.Builder("search", "2020-01-01");
+        MappingsFixtures.create().getTypes().forEach(builder::addType);
+        builder.addType(new AtlasType.Builder("d", "com/example/sub/Baz")
+                .addMember(new AtlasField.Builder("a", "count", "long")));
+        builder.addType(new AtlasType.Builder("e", "com/examples/Other"));
+        builder.addType(new AtlasType.Builder("f", "Top"));
+        return new MappingsSearchIndex(builder.build());
+    }
+
+    private static List<String> mapped(List<? extends AtlasMember> members) {
+        return members.stream().map(AtlasMember::getMappedName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void findsTypesByPrefix() {
+        MappingsSearchIndex index = index();
+        assertEquals(ImmutableList.of("Top", "com/example/Bar", "com/example/Foo", "com/example/Foo$Inner", "com/example/Foo$Inner$Deeper",
+                "com/example/Straße", "com/example/sub/Baz", "com/examples/Other"), mapped(index.findTypes("", true)));
+        // A prefix equal to a full name includes the type itself and the types nested in it.
+        assertEquals(ImmutableList.of("com/example/Foo", "com/example/Foo$Inner", "com/example/Foo$Inner$Deeper"), mapped(index.findTypes("com/example/Foo", true)));
+        assertEquals(ImmutableList.of("com/example/Foo$Inner$Deeper"), mapped(index.findTypes("com/example/Foo$Inner$Deeper", true)));
+        assertEquals(ImmutableList.of(), mapped(index.findTypes("com/example/Foo$Inner$Deeper$", true)));
+        assertEquals(ImmutableList.of(), mapped(index.findTypes("com/example/Fooz", true)));
+        assertEquals(ImmutableList.of("com/example/Foo$Inner", "com/example/Foo$Inner$Deeper"), mapped(index.findTypes("a$", false)));
+    }
+
+    @Test
+    public void findsTypesBySimpleName() {
+        MappingsSearchIndex index = index();
+        assertEquals(ImmutableList.of("com/example/Foo$Inner", "com/example/Foo$Inner$Deeper"), mapped(index.findTypesBySimpleName("Foo$", true)));
+        assertEquals(ImmutableList.of("com/example/Bar", "com/example/sub/Baz"), mapped(index.findTypesBySimpleName("Ba", true)));
+        assertEquals(ImmutableList.of("Top"), mapped(index.findTypesBySimpleName("Top", true)));
+        assertEquals(8, index.findTypesBySimpleName("", true).size());
+    }
+
+    @Test
+    public void findsTypesInPackage() {
+        MappingsSearchIndex index = index();
+        // Neither the nested package nor the package sharing a prefix is included.
+        assertEquals(ImmutableList.of("com/example/Bar", "com/example/Foo", "com/example/Foo$Inner", "com/example/Foo$Inner$Deeper", "com/example/Straße"),
+                mapped(index.findTypesInPackage("com/example", false, true)));
+        assertEquals(ImmutableList.of("com/example/Bar", "com/example/Foo", "com/example/Foo$Inner", "com/example/Foo$Inner$Deeper", "com/example/Straße",
+                "com/example/sub/Baz"), mapped(index.findTypesInPackage("com/example", true, true)));
+        assertEquals(ImmutableList.of("com/example/sub/Baz"), mapped(index.findTypesInPackage("com/example/sub", true, true)));
+        assertEquals(ImmutableList.of(), mapped(index.findTypesInPackage("com", false, true)));
+        assertEquals(7, index.findTypesInPackage("com", true, true).size());
+        assertEquals(ImmutableList.of(), mapped(index.findTypesInPackage("com/exam", true, true)));
+
+        assertEquals(ImmutableList.of("Top"), mapped(index.findTypesInPackage("", false, true)));
+        assertEquals(8, index.findTypesInPackage("", true, true).size());
+        // Every obfuscated name is in the default package.
+        assertEquals(8, index.findTypesInPackage("", false, false).size());
+    }
+
+    @Test
+    public void findsMembersByName() {
+        MappingsSearchIndex index = index();
+        List<AtlasField> counts = index.findFields("count", true);
+        assertEquals(ImmutableList.of("com/example/Foo", "com/example/sub/Baz"), counts.stream().map(f -> f.getParent().getMappedName()).collect(Collectors.toList()));
+        assertEquals(ImmutableList.of("bar", "foo", "get", "owner", "run"), mapped(index.findMethods("", true)));
+        assertEquals(ImmutableList.of("bar"), mapped(index.findMethods("bar", true)));
+        assertEquals(ImmutableList.of(), mapped(index.findMethods("bars", true)));
+        assertEquals(4, index.findMethods("a", false).size());
+    }
+
+    @Test
+    public void findsMembersByOwner() {
+        MappingsSearchIndex index = index();
+        // Members of nested types aren't members of their enclosing types.
+        assertEquals(ImmutableList.of("bar", "run"), mapped(index.findMethods("com/example/Foo", "", true)));
+        assertEquals(ImmutableList.of("get"), mapped(index.findMethods("com/example/Foo$Inner", "", true)));
+        assertEquals(ImmutableList.of("owner"), mapped(index.findMethods("com/example/Foo$Inner$Deeper", "", true)));
+        assertEquals(ImmutableList.of("run"), mapped(index.findMethods("com/example/Foo", "run", true)));
+        assertEquals(ImmutableList.of(), mapped(index.findMethods("com/example/Fo", "", true)));
+        assertEquals(ImmutableList.of(), mapped(index.findMethods("com/example/Missing", "", true)));
+
+        assertEquals(ImmutableList.of("bar", "count"), mapped(index.findFields("com/example/Foo", "", true)));
+        assertEquals(ImmutableList.of("count"), mapped(index.findFields("com/example/Foo", "count", true)));
+        assertEquals(ImmutableList.of("name"), mapped(index.findFields("com/example/Foo$Inner", "", true)));
+        assertEquals(ImmutableList.of("count"), mapped(index.findFields("com/example/sub/Baz", "c", true)));
+
+        List<AtlasMethod> obfuscated = index.findMethods("a", "", false);
+        assertEquals(ImmutableList.of("a", "b"), obfuscated.stream().map(AtlasMethod::getObfuscatedName).collect(Collectors.toList()));
+        assertEquals(ImmutableList.of("get"), mapped(index.findMethods("a$a", "a", false)));
+    }
+
+}
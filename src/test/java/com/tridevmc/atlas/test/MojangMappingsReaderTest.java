@@ -0,0 +1,153 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.Lists;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasType;
+import com.tridevmc.atlas.read.MojangMappingsReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads Mojang mappings equivalent to {@link MappingsFixtures#create()} from every kind of source.
+ */
+public class MojangMappingsReaderTest {
+
+    static final String FIXTURE = "# compiler: R8\n"
+            + "com.example.Foo -> a:\n"
+            + "    int count -> a\n"
+            + "    com.example.Bar bar -> b\n"
+            + "    1:5:void run():10:14 -> a\n"
+            + "    com.example.Bar bar(int,com.example.Foo[]) -> b\n"
+            + "com.example.Foo$Inner -> a$a:\n"
+            + "# a comment between members\n"
+            + "    java.lang.String name -> a\n"
+            + "    6:6:java.lang.String get() -> a\n"
+            + "com.example.Foo$Inner$Deeper -> a$a$a:\n"
+            + "    com.example.Foo$Inner owner(long[][]) -> a\n"
+            + "\n"
+            + "com.example.Bar -> b:\n"
+            + "    com.example.Foo foo(java.lang.String) -> a\n"
+            + "com.example.Straße -> c:\n"
+            + "    com.example.Straße grüße -> a\n";
+
+    private static AtlasMappings read(String text) {
+        return new MojangMappingsReader("mojang", text).read();
+    }
+
+    private static void assertFixture(AtlasMappings mappings) {
+        assertEquals(MappingsFixtures.dump(MappingsFixtures.create()), MappingsFixtures.dump(mappings));
+    }
+
+    @Test
+    public void readsLines() {
+        assertFixture(read(FIXTURE));
+        assertFixture(new MojangMappingsReader("mojang", FIXTURE.split("\n")).read());
+    }
+
+    @Test
+    public void ignoresLineEndingsAndWhitespace() {
+        assertFixture(read(FIXTURE.replace("\n", "\r\n")));
+        assertFixture(read(FIXTURE.replace(":\n", ":  \n").replace("\n    ", "\n \t \n    ").replace(" -> a\n", " -> a \t\n")));
+    }
+
+    @Test
+    public void copiesGivenLines() {
+        List<String> lines = Lists.newArrayList(FIXTURE.split("\n"));
+        MojangMappingsReader reader = new MojangMappingsReader("mojang", lines);
+        lines.clear();
+        assertFixture(reader.read());
+    }
+
+    @Test
+    public void skipsIndentedComments() {
+        // R8 writes metadata as comments indented under the class headers they describe.
+        String text = FIXTURE.replace("com.example.Foo -> a:\n", "com.example.Foo -> a:\n    # {\"id\":\"sourceFile\",\"fileName\":\"Foo.java\"}\n")
+                .replace("com.example.Bar -> b:\n", "com.example.Bar -> b:\n\t# {\"id\":\"com.android.tools.r8.synthesized\"}\n");
+        assertFixture(read(text));
+        assertFixture(new MojangMappingsReader("mojang", new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))).setParallel(new ForkJoinPool(2)).read());
+    }
+
+    @Test
+    public void readsFromPath() throws IOException {
+        Path file = Files.createTempFile("atlas", ".txt");
+        try {
+            Files.write(file, FIXTURE.getBytes(StandardCharsets.UTF_8));
+            assertFixture(new MojangMappingsReader("mojang", file).read());
+            assertFixture(new MojangMappingsReader("mojang", file).setParallel(true).read());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void readsFromInputStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayInputStream input = new ByteArrayInputStream(FIXTURE.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        assertFixture(new MojangMappingsReader("mojang", input).read());
+        assertTrue(closed.get());
+        assertFixture(new MojangMappingsReader("mojang", new ByteArrayInputStream(FIXTURE.getBytes(StandardCharsets.UTF_8))).setParallel(true).read());
+    }
+
+    @Test
+    public void readsInParallelChunks() {
+        // Nested types come before and long after their enclosing types, so they're parsed in different chunks.
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            text.append("com.example.Outer").append(i).append("$Early -> o").append(i).append("$a:\n");
+            text.append("    int early -> a\n");
+        }
+        for (int i = 0; i < 300; i++) {
+            text.append("com.example.Outer").append(i).append(" -> o").append(i).append(":\n");
+            text.append("    com.example.Outer").append(i).append("$Early make(int[]) -> a\n");
+        }
+        for (int i = 0; i < 300; i++) {
+            text.append("com.example.Outer").append(i).append("$Late -> o").append(i).append("$b:\n");
+        }
+        AtlasMappings sequential = read(text.toString());
+        AtlasMappings parallel = new MojangMappingsReader("mojang", text.toString()).setParallel(new ForkJoinPool(4)).read();
+        assertEquals(MappingsFixtures.dump(sequential), MappingsFixtures.dump(parallel));
+        assertEquals(300, parallel.getTypes().size());
+        AtlasType outer = parallel.findType("o299", false);
+        assertEquals(2, outer.getChildren().size());
+        assertEquals("([I)Lo299$a;", outer.findMethod("make", "([I)Lcom/example/Outer299$Early;", true).getObfuscatedDescriptor());
+    }
+
+    @Test
+    public void keepsOrphanNestedTypesAtTopLevel() {
+        String text = FIXTURE + "com.example.Missing$Orphan -> z$a:\n    int value -> a\n";
+        for (AtlasMappings mappings : new AtlasMappings[]{read(text), new MojangMappingsReader("mojang", text).setParallel(true).read()}) {
+            AtlasType orphan = mappings.findType("z$a", false);
+            assertEquals("com/example/Missing$Orphan", orphan.getMappedName());
+            assertTrue(mappings.getTypes().contains(orphan));
+            assertEquals("a", orphan.findField("value", true).getObfuscatedName());
+        }
+    }
+
+    @Test
+    public void rejectsMalformedLines() {
+        assertThrows(RuntimeException.class, () -> read("com.example.Foo a:\n"));
+        assertThrows(RuntimeException.class, () -> read("    int count -> a\n"));
+        assertThrows(RuntimeException.class, () -> read("com.example.Foo -> a:\n    int count a\n"));
+        assertThrows(RuntimeException.class, () -> read("com.example.Foo -> a:\n    1:void run() -> a\n"));
+        assertThrows(RuntimeException.class, () -> read("com.example.Foo -> a:\n    void run( -> a\n"));
+        assertThrows(RuntimeException.class, () -> read("com.example.Foo -> a:\n    run() -> a\n"));
+        RuntimeException e = assertThrows(RuntimeException.class, () -> read("com.example.Foo -> a:\n    1:2 -> a()\n"));
+        assertTrue(e.getMessage().contains("line 1"), e.getMessage());
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.ImmutableSet;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+import com.tridevmc.atlas.read.MojangMappingsReader;
+import com.tridevmc.atlas.read.MojangMappingsReloader;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reloads edited versions of the Mojang fixture from {@link MojangMappingsReaderTest}.
+ */
+public class MojangMappingsReloaderTest {
+
+    private static MojangMappingsReloader.Reload load(MojangMappingsReloader reloader, String text) {
+        return reloader.load(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void reusesUnchangedTypes() {
+        MojangMappingsReloader reloader = new MojangMappingsReloader("mojang");
+        MojangMappingsReloader.Reload first = load(reloader, MojangMappingsReaderTest.FIXTURE);
+        assertEquals(ImmutableSet.of("a", "a$a", "a$a$a", "b", "c"), first.getChangedTypes());
+        assertEquals(ImmutableSet.of(), first.getRebuiltTypes());
+        assertEquals(MappingsFixtures.dump(MappingsFixtures.create()), MappingsFixtures.dump(first.getMappings()));
+
+        // Only the edited group is parsed again, a member rename doesn't change any descriptors.
+        MojangMappingsReloader.Reload second = load(reloader, MojangMappingsReaderTest.FIXTURE.replace("String get()", "String fetch()"));
+        assertEquals(ImmutableSet.of("a", "a$a", "a$a$a"), second.getChangedTypes());
+        assertEquals(ImmutableSet.of(), second.getRebuiltTypes());
+        assertNotSame(first.getMappings().findType("a", false), second.getMappings().findType("a", false));
+        assertSame(first.getMappings().findType("b", false), second.getMappings().findType("b", false));
+        assertSame(first.getMappings().findType("c", false), second.getMappings().findType("c", false));
+        assertEquals("fetch", second.getMappings().findType("a$a", false).findMethod("a", "()Ljava/lang/String;", false).getMappedName());
+        assertSame(reloader.getMappings(), second.getMappings());
+    }
+
+    @Test
+    public void rebuildsTypesReferringToRenamedTypes() {
+        MojangMappingsReloader reloader = new MojangMappingsReloader("mojang");
+        AtlasMappings first = load(reloader, MojangMappingsReaderTest.FIXTURE).getMappings();
+        // Blocks name other types by their mapped names, so only Bar's own block changes when it's obfuscated differently.
+        String renamed = MojangMappingsReaderTest.FIXTURE.replace("com.example.Bar -> b:", "com.example.Bar -> d:");
+        MojangMappingsReloader.Reload second = load(reloader, renamed);
+
+        assertEquals(ImmutableSet.of("b", "d"), second.getChangedTypes());
+        assertEquals(ImmutableSet.of("a", "a$a", "a$a$a"), second.getRebuiltTypes());
+        // Foo's obfuscated descriptors name Bar, Straße refers to neither and is kept.
+        AtlasMethod bar = second.getMappings().findType("a", false).findMethod("bar", "(I[Lcom/example/Foo;)Lcom/example/Bar;", true);
+        assertEquals("(I[La;)Ld;", bar.getObfuscatedDescriptor());
+        assertSame(first.findType("c", false), second.getMappings().findType("c", false));
+        assertEquals(MappingsFixtures.dump(new MojangMappingsReader("mojang", renamed).read()), MappingsFixtures.dump(second.getMappings()));
+    }
+
+    @Test
+    public void skipsIndentedComments() {
+        MojangMappingsReloader reloader = new MojangMappingsReloader("mojang");
+        String text = MojangMappingsReaderTest.FIXTURE.replace("com.example.Foo -> a:\n", "com.example.Foo -> a:\n    # {\"id\":\"sourceFile\",\"fileName\":\"Foo.java\"}\n")
+                .replace("com.example.Bar -> b:\n", "com.example.Bar -> b:\n\t# {\"id\":\"com.android.tools.r8.synthesized\"}\n");
+        assertEquals(MappingsFixtures.dump(MappingsFixtures.create()), MappingsFixtures.dump(load(reloader, text).getMappings()));
+
+        // The comment belongs to Bar's block, so editing it only changes Bar.
+        MojangMappingsReloader.Reload second = load(reloader, text.replace("com.android.tools.r8.synthesized", "synthesized"));
+        assertEquals(ImmutableSet.of("b"), second.getChangedTypes());
+        assertEquals(MappingsFixtures.dump(MappingsFixtures.create()), MappingsFixtures.dump(second.getMappings()));
+    }
+
+    @Test
+    public void rebindsSharedTypes() {
+        MojangMappingsReloader reloader = new MojangMappingsReloader("mojang");
+        AtlasMappings first = load(reloader, MojangMappingsReaderTest.FIXTURE).getMappings();
+        AtlasType foo = first.findType("a", false);
+        AtlasMappings second = load(reloader, MojangMappingsReaderTest.FIXTURE.replace("grüße", "gruesse")).getMappings();
+
+        assertSame(foo, second.findType("a", false));
+        assertSame(second, foo.getMappings());
+        assertSame(second, second.findType("a$a$a", false).getMappings());
+    }
+
+    @Test
+    public void releasesOlderMappings() throws InterruptedException {
+        MojangMappingsReloader reloader = new MojangMappingsReloader("mojang");
+        WeakReference<AtlasMappings> first = new WeakReference<>(load(reloader, MojangMappingsReaderTest.FIXTURE).getMappings());
+        AtlasMappings second = load(reloader, MojangMappingsReaderTest.FIXTURE.replace("grüße", "gruesse")).getMappings();
+
+        for (int i = 0; i < 50 && first.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(first.get(), "The types shared with newer mappings kept the older mappings alive");
+        assertEquals("gruesse", second.findType("c", false).findField("a", false).getMappedName());
+    }
+
+}
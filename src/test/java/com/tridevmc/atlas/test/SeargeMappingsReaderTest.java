@@ -0,0 +1,145 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.mappings.AtlasMethod;
+import com.tridevmc.atlas.mappings.AtlasType;
+import com.tridevmc.atlas.read.SeargeMappingsReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads SRG mappings equivalent to {@link MappingsFixtures#create()}, apart from field types which SRG doesn't store.
+ */
+public class SeargeMappingsReaderTest {
+
+    // Foo refers to Bar before Bar is declared, so its method is only resolved once every type has been read.
+    static final String FIXTURE = "a com/example/Foo\n"
+            + "\ta count\n"
+            + "\tb bar\n"
+            + "\ta ()V run\n"
+            + "\tb (I[La;)Lb; bar\n"
+            + "a$a com/example/Foo$Inner\n"
+            + "\ta name\n"
+            + "\ta ()Ljava/lang/String; get\n"
+            + "a$a$a com/example/Foo$Inner$Deeper\n"
+            + "\ta ([[J)La$a; owner\n"
+            + "b com/example/Bar\n"
+            + "\ta (Ljava/lang/String;)La; foo\n"
+            + "c com/example/Straße\n"
+            + "\ta grüße\n";
+
+    private static AtlasMappings read(List<String> lines) throws IOException {
+        return new SeargeMappingsReader("srg", lines, ImmutableMap.of(), ImmutableMap.of()).read();
+    }
+
+    /**
+     * Gets the dump of the fixture mappings with the field types left out.
+     */
+    static List<String> expectedDump() {
+        return MappingsFixtures.dump(MappingsFixtures.create()).stream()
+                .map(line -> line.startsWith("    field") ? line.substring(0, line.lastIndexOf(" : ") + 3) : line)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void readsLines() throws IOException {
+        AtlasMappings mappings = read(Arrays.asList(FIXTURE.split("\n")));
+        assertEquals(expectedDump(), MappingsFixtures.dump(mappings));
+        // The descriptor read is used as the obfuscated descriptor, and the forward reference is resolved to its mapped name.
+        AtlasMethod bar = mappings.findType("a", false).findMethod("b", "(I[La;)Lb;", false);
+        assertEquals("com/example/Bar", bar.getReturnType());
+        assertEquals("(I[Lcom/example/Foo;)Lcom/example/Bar;", bar.getMappedDescriptor());
+    }
+
+    @Test
+    public void readsFromPath() throws IOException {
+        Path file = Files.createTempFile("atlas", ".srg");
+        try {
+            Files.write(file, FIXTURE.getBytes(StandardCharsets.UTF_8));
+            assertEquals(expectedDump(), MappingsFixtures.dump(new SeargeMappingsReader("srg", file, ImmutableMap.of(), ImmutableMap.of()).read()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void readsFromInputStream() {
+        InputStream input = new ByteArrayInputStream(FIXTURE.replace("\n", "\r\n").getBytes(StandardCharsets.UTF_8));
+        assertEquals(expectedDump(), MappingsFixtures.dump(new SeargeMappingsReader("srg", input, ImmutableMap.of(), ImmutableMap.of()).read()));
+    }
+
+    @Test
+    public void appliesMemberNames() throws IOException {
+        AtlasMappings mappings = new SeargeMappingsReader("srg", ImmutableList.of(
+                "a com/example/Foo",
+                "\ta field_1_a",
+                "\tb field_2_b",
+                "\ta ()V func_1_a",
+                "\tb ()V func_2_b"),
+                ImmutableMap.of("field_1_a", "count"), ImmutableMap.of("func_1_a", "run")).read();
+        AtlasType foo = mappings.findType("a", false);
+        assertEquals("count", foo.findField("a", false).getMappedName());
+        assertEquals("field_2_b", foo.findField("b", false).getMappedName());
+        assertEquals("run", foo.findMethod("a", "()V", false).getMappedName());
+        assertEquals("func_2_b", foo.findMethod("b", "()V", false).getMappedName());
+    }
+
+    @Test
+    public void keepsUnknownTypesObfuscated() throws IOException {
+        AtlasMappings mappings = read(ImmutableList.of(
+                "a com/example/Foo",
+                "\ta (Lzz;Ljava/util/List;)[Lzz; use"));
+        AtlasMethod use = mappings.findType("a", false).getMethods().get(0);
+        assertEquals(ImmutableList.of("zz", "java/util/List"), use.getArgumentTypes());
+        assertEquals("zz[]", use.getReturnType());
+    }
+
+    @Test
+    public void rejectsMalformedLines() {
+        assertThrows(RuntimeException.class, () -> read(ImmutableList.of("a")));
+        assertThrows(RuntimeException.class, () -> read(ImmutableList.of("\ta count")));
+        assertThrows(RuntimeException.class, () -> read(ImmutableList.of("a com/example/Foo", "\ta (I)V")));
+        assertThrows(RuntimeException.class, () -> read(ImmutableList.of("a com/example/Foo", "\ta (Q)V run")));
+        assertThrows(RuntimeException.class, () -> read(ImmutableList.of("a com/example/Foo", "\ta (La)V run")));
+    }
+
+    @Test
+    public void ignoresTrailingWhitespace() throws IOException {
+        AtlasMappings expected = read(ImmutableList.of(
+                "a com/example/Foo",
+                "\ta field_1_a",
+                "\tb (I)V func_1_b"));
+        AtlasMappings mappings = read(ImmutableList.of(
+                "a com/example/Foo ",
+                "\ta field_1_a\t",
+                "\tb (I)V func_1_b "));
+        assertEquals(MappingsFixtures.dump(expected), MappingsFixtures.dump(mappings));
+        AtlasMethod method = mappings.findType("a", false).findMethod("b", "(I)V", false);
+        assertEquals("func_1_b", method.getMappedName());
+        assertEquals(MappingsFixtures.dump(expected), MappingsFixtures.dump(read(ImmutableList.of(
+                "a com/example/Foo\t \t",
+                "\ta field_1_a \t ",
+                "\tb (I)V  func_1_b \t"))));
+    }
+
+    @Test
+    public void rejectsMethodWithoutMappedName() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> read(ImmutableList.of("a com/example/Foo", "\tb (I)V ")));
+        assertTrue(e.getMessage().contains("invalid format"), e.getMessage());
+        assertThrows(RuntimeException.class, () -> read(ImmutableList.of("a com/example/Foo", "\tb (I)V\t")));
+    }
+
+}
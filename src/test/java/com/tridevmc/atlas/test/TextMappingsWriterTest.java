@@ -0,0 +1,77 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.ImmutableMap;
+import com.tridevmc.atlas.mappings.AtlasMappings;
+import com.tridevmc.atlas.read.MojangMappingsReader;
+import com.tridevmc.atlas.read.SeargeMappingsReader;
+import com.tridevmc.atlas.write.IMappingsWriter;
+import com.tridevmc.atlas.write.MojangMappingsWriter;
+import com.tridevmc.atlas.write.SeargeMappingsWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes the fixture mappings as text and reads them back with the matching reader.
+ */
+public class TextMappingsWriterTest {
+
+    private static byte[] write(IMappingsWriter writer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out);
+        return out.toByteArray();
+    }
+
+    private static AtlasMappings readMojang(byte[] data) {
+        return new MojangMappingsReader("mojang", new ByteArrayInputStream(data)).read();
+    }
+
+    private static AtlasMappings readSearge(byte[] data) {
+        return new SeargeMappingsReader("srg", new ByteArrayInputStream(data), ImmutableMap.of(), ImmutableMap.of()).read();
+    }
+
+    @Test
+    public void roundTripsMojangMappings() throws IOException {
+        AtlasMappings mappings = MappingsFixtures.create();
+        assertEquals(MappingsFixtures.dump(mappings), MappingsFixtures.dump(readMojang(write(new MojangMappingsWriter(mappings)))));
+        assertArrayEquals(write(new MojangMappingsWriter(mappings)), write(new MojangMappingsWriter(mappings).setParallel(true)));
+    }
+
+    @Test
+    public void writesMojangMappingsToPath() throws IOException {
+        Path file = Files.createTempFile("atlas", ".txt");
+        try {
+            Files.write(file, new byte[1 << 12]);
+            new MojangMappingsWriter(MappingsFixtures.create()).write(file);
+            AtlasMappings read = new MojangMappingsReader("mojang", file).read();
+            assertEquals(MappingsFixtures.dump(MappingsFixtures.create()), MappingsFixtures.dump(read));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void writesUntypedFieldsAsObjects() throws IOException {
+        AtlasMappings srg = readSearge(SeargeMappingsReaderTest.FIXTURE.getBytes(StandardCharsets.UTF_8));
+        String text = new String(write(new MojangMappingsWriter(srg)), StandardCharsets.UTF_8);
+        assertTrue(text.contains("    java.lang.Object count -> a\n"), text);
+        assertEquals("java/lang/Object", readMojang(text.getBytes(StandardCharsets.UTF_8)).findType("a", false).findField("a", false).getType());
+    }
+
+    @Test
+    public void roundTripsSeargeMappings() throws IOException {
+        byte[] data = write(new SeargeMappingsWriter(MappingsFixtures.create()));
+        // Field types aren't part of the format, everything else survives.
+        assertFalse(new String(data, StandardCharsets.UTF_8).contains("java/lang/String name"));
+        assertEquals(SeargeMappingsReaderTest.expectedDump(), MappingsFixtures.dump(readSearge(data)));
+        assertEquals(SeargeMappingsReaderTest.expectedDump(), MappingsFixtures.dump(readSearge(write(new SeargeMappingsWriter(readSearge(data))))));
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.Maps;
+import com.tridevmc.atlas.util.ZipArchive;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads archives written by java.util.zip with {@link ZipArchive}.
+ */
+public class ZipArchiveTest {
+
+    /**
+     * Gets entries covering text, incompressible data, empty files and non-ASCII names, in the order they're written.
+     */
+    static Map<String, byte[]> entries() {
+        byte[] random = new byte[100_000];
+        new Random(42).nextBytes(random);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        Map<String, byte[]> entries = Maps.newLinkedHashMap();
+        entries.put("META-INF/MANIFEST.MF", "Manifest-Version: 1.0\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+        entries.put("com/example/Foo.class", text.toString().getBytes(StandardCharsets.UTF_8));
+        entries.put("assets/random.bin", random);
+        entries.put("assets/empty.txt", new byte[0]);
+        entries.put("assets/straße.txt", "grüße".getBytes(StandardCharsets.UTF_8));
+        return entries;
+    }
+
+    /**
+     * Writes the given entries with java.util.zip, storing entries whose name ends with ".bin" and deflating the others.
+     */
+    static void writeJar(Path file, Map<String, byte[]> entries) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("assets/"));
+            out.closeEntry();
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                if (entry.getKey().endsWith(".bin")) {
+                    CRC32 crc = new CRC32();
+                    crc.update(entry.getValue());
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(entry.getValue().length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+                out.putNextEntry(zipEntry);
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+            out.setComment("written by java.util.zip");
+        }
+    }
+
+    @Test
+    public void readsJarsWrittenByJava() throws IOException {
+        Path file = Files.createTempFile("atlas", ".jar");
+        try {
+            Map<String, byte[]> expected = entries();
+            writeJar(file, expected);
+            try (ZipArchive archive = ZipArchive.open(file)) {
+                assertEquals(expected.size() + 1, archive.getEntries().size());
+                ZipArchive.Entry directory = archive.getEntries().get(0);
+                assertEquals("assets/", directory.getName());
+                assertTrue(directory.isDirectory());
+                for (int i = 1; i < archive.getEntries().size(); i++) {
+                    ZipArchive.Entry entry = archive.getEntries().get(i);
+                    assertFalse(entry.isDirectory());
+                    assertTrue(expected.containsKey(entry.getName()), entry.getName());
+                    assertEquals(entry.getName().endsWith(".bin") ? ZipEntry.STORED : ZipEntry.DEFLATED, entry.getMethod());
+                    assertEquals(expected.get(entry.getName()).length, entry.getSize());
+                    assertArrayEquals(expected.get(entry.getName()), archive.read(entry), entry.getName());
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void rejectsCorruptArchives() throws IOException {
+        Path file = Files.createTempFile("atlas", ".jar");
+        try {
+            Files.write(file, "not a zip file".getBytes(StandardCharsets.UTF_8));
+            assertThrows(IOException.class, () -> ZipArchive.open(file).close());
+
+            // Flip a byte of the stored entry so it no longer matches its checksum.
+            Map<String, byte[]> entries = entries();
+            writeJar(file, entries);
+            byte[] data = Files.readAllBytes(file);
+            byte[] random = entries.get("assets/random.bin");
+            for (int i = 0; i < data.length; i++) {
+                if (data[i] == random[0] && data[i + 1] == random[1] && data[i + 2] == random[2] && data[i + 3] == random[3]) {
+                    data[i + 1000] ^= 1;
+                    break;
+                }
+            }
+            try (OutputStream out = Files.newOutputStream(file)) {
+                out.write(data);
+            }
+            try (ZipArchive archive = ZipArchive.open(file)) {
+                ZipArchive.Entry entry = archive.getEntries().stream().filter(e -> e.getName().equals("assets/random.bin")).findAny().get();
+                assertThrows(ZipException.class, () -> archive.read(entry));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.tridevmc.atlas.test;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.tridevmc.atlas.util.ZipArchive;
+import com.tridevmc.atlas.util.ZipArchiveWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes archives with {@link ZipArchiveWriter} and reads them back with java.util.zip.
+ */
+public class ZipArchiveWriterTest {
+
+    // 2020-01-01 00:00:00 in MS-DOS format.
+    private static final int DOS_TIME = (40 << 25) | (1 << 21) | (1 << 16);
+
+    /**
+     * Asserts the archive contains exactly the given entries in order, all compressed with the given method.
+     */
+    static void assertEntries(Path file, Map<String, byte[]> expected, int method) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            List<String> names = Collections.list(zip.entries()).stream().map(ZipEntry::getName).collect(Collectors.toList());
+            assertEquals(Lists.newArrayList(expected.keySet()), names);
+            for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                ZipEntry zipEntry = zip.getEntry(entry.getKey());
+                assertEquals(method, zipEntry.getMethod(), entry.getKey());
+                assertEquals(entry.getValue().length, zipEntry.getSize());
+                try (InputStream in = zip.getInputStream(zipEntry)) {
+                    assertArrayEquals(entry.getValue(), ByteStreams.toByteArray(in), entry.getKey());
+                }
+            }
+        }
+    }
+
+    private static void write(Path file, Map<String, byte[]> entries, int method, int level) throws IOException {
+        try (ZipArchiveWriter writer = new ZipArchiveWriter(Files.newOutputStream(file)).setMethod(method).setLevel(level)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                writer.write(writer.compress(entry.getKey(), DOS_TIME, entry.getValue()));
+            }
+        }
+    }
+
+    @Test
+    public void writesDeflatedEntries() throws IOException {
+        Path file = Files.createTempFile("atlas", ".jar");
+        try {
+            Map<String, byte[]> entries = ZipArchiveTest.entries();
+            write(file, entries, ZipEntry.DEFLATED, Deflater.BEST_COMPRESSION);
+            assertEntries(file, entries, ZipEntry.DEFLATED);
+            try (ZipFile zip = new ZipFile(file.toFile())) {
+                ZipEntry foo = zip.getEntry("com/example/Foo.class");
+                assertTrue(foo.getCompressedSize() < foo.getSize());
+                assertEquals(LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.ofInstant(Instant.ofEpochMilli(foo.getTime()), ZoneId.systemDefault()));
+            }
+
+            write(file, entries, ZipEntry.DEFLATED, Deflater.NO_COMPRESSION);
+            assertEntries(file, entries, ZipEntry.DEFLATED);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void writesStoredEntries() throws IOException {
+        Path file = Files.createTempFile("atlas", ".jar");
+        try {
+            Map<String, byte[]> entries = ZipArchiveTest.entries();
+            write(file, entries, ZipEntry.STORED, Deflater.DEFAULT_COMPRESSION);
+            assertEntries(file, entries, ZipEntry.STORED);
+            try (ZipFile zip = new ZipFile(file.toFile())) {
+                ZipEntry foo = zip.getEntry("com/example/Foo.class");
+                assertEquals(foo.getSize(), foo.getCompressedSize());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void rejectsInvalidSettingsAndDuplicates() throws IOException {
+        Path file = Files.createTempFile("atlas", ".jar");
+        try (ZipArchiveWriter writer = new ZipArchiveWriter(Files.newOutputStream(file))) {
+            assertThrows(IllegalArgumentException.class, () -> writer.setMethod(12));
+            assertThrows(IllegalArgumentException.class, () -> writer.setLevel(10));
+            writer.write(writer.compress("a.txt", DOS_TIME, new byte[1]));
+            assertThrows(ZipException.class, () -> writer.write(writer.compress("a.txt", DOS_TIME, new byte[1])));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void copiesEntriesWithoutRecompressing() throws IOException {
+        Path source = Files.createTempFile("atlas", ".jar");
+        Path file = Files.createTempFile("atlas", ".jar");
+        try {
+            // Deflated entries on either side of the 64K threshold above which entries are transferred between channels.
+            Map<String, byte[]> entries = ZipArchiveTest.entries();
+            byte[] random = new byte[200_000];
+            new Random(7).nextBytes(random);
+            entries.put("assets/random.dat", random);
+            ZipArchiveTest.writeJar(source, entries);
+
+            try (ZipArchive archive = ZipArchive.open(source)) {
+                assertTrue(archive.getEntries().stream().anyMatch(entry -> entry.getCompressedSize() > 1 << 16 && entry.getMethod() == ZipEntry.DEFLATED));
+                assertTrue(archive.getEntries().stream().anyMatch(entry -> entry.getCompressedSize() > 1 << 16 && entry.getMethod() == ZipEntry.STORED));
+
+                // A file's own channel is transferred to directly, any other stream through a wrapping channel.
+                copy(archive, new FileOutputStream(file.toFile()));
+                assertCopied(archive, file, entries);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                copy(archive, out);
+                Files.write(file, out.toByteArray());
+                assertCopied(archive, file, entries);
+            }
+        } finally {
+            Files.delete(source);
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Copies every entry of the archive, interleaved with newly compressed entries so the writer's position is checked after each copy.
+     */
+    private static void copy(ZipArchive archive, OutputStream out) throws IOException {
+        try (ZipArchiveWriter writer = new ZipArchiveWriter(out)) {
+            for (ZipArchive.Entry entry : archive.getEntries()) {
+                writer.writeRaw(archive, entry);
+                writer.write(writer.compress(entry.getName() + ".new", DOS_TIME, entry.getName().getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+    }
+
+    private static void assertCopied(ZipArchive archive, Path file, Map<String, byte[]> entries) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertEquals(archive.getEntries().size() * 2, zip.size());
+            for (ZipArchive.Entry entry : archive.getEntries()) {
+                ZipEntry copied = zip.getEntry(entry.getName());
+                assertEquals(entry.getMethod(), copied.getMethod(), entry.getName());
+                assertEquals(entry.getCompressedSize(), copied.getCompressedSize(), entry.getName());
+                assertEquals(entry.getCrc(), copied.getCrc(), entry.getName());
+                try (InputStream in = zip.getInputStream(copied)) {
+                    assertArrayEquals(entry.isDirectory() ? new byte[0] : entries.get(entry.getName()), ByteStreams.toByteArray(in), entry.getName());
+                }
+                try (InputStream in = zip.getInputStream(zip.getEntry(entry.getName() + ".new"))) {
+                    assertEquals(entry.getName(), new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+
+}